@@ -0,0 +1,186 @@
+package com.sabacc;
+
+import com.badlogic.gdx.Gdx;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.RulesEngine;
+import com.sabacc.screens.GameScreen;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Works out AI turns on a background thread so the render thread never waits on a strategy. A turn
+ * starts deciding as soon as it begins, then the decision is posted back to the render thread and
+ * carried out by the GameLoop once the turn delay has passed, so a slow strategy only takes longer
+ * than the delay and never drops a frame
+ *
+ * Everything but the decision itself happens on the render thread. Nothing acts on the game while
+ * a decision is being made, as it is not a human's turn, and a card the player fields in the meantime
+ * waits until the decision is back
+ */
+public class AiWorker {
+    final private GameScreen screen;
+    final private GameLoop loop;
+    final private ExecutorService executor;
+
+    // Bumped whenever the turn in progress is cancelled, so a decision that comes back late is ignored
+    private int generation;
+    private boolean busy;
+    private Future<?> pending;
+
+    // How long decisions have taken on the worker thread
+    private int decisions;
+    private long decisionNanos;
+    private long slowestNanos;
+
+    public AiWorker(GameScreen s, GameLoop loop) {
+        screen = s;
+        this.loop = loop;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ai-worker");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * If an AI turn has been started and not carried out yet
+     */
+    public boolean busy() { return busy; }
+
+    /**
+     * Start deciding the turn of the current AI player, to be carried out no sooner than the delay
+     * @param seconds the shortest time a turn should take, so the player can follow the game
+     */
+    public void start(float seconds) {
+        busy = true;
+        final int turn = ++generation;
+        final RulesEngine engine = screen.engine;
+        final Player player = screen.state.getCurrentPlayer();
+        final GameState.Phase phase = screen.state.phase;
+        final long started = System.nanoTime();
+        final long earliest = started + (long)(seconds * 1e9);
+
+        pending = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final int decision;
+                try {
+                    decision = engine.aiDecide();
+                } catch (final RuntimeException e) {
+                    // Fail on the render thread, where it will be seen, dropping the turn first so the worker
+                    // is not left busy forever if the game carries on
+                    Gdx.app.postRunnable(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (turn == generation)
+                                cancel();
+                            throw e;
+                        }
+                    });
+                    return;
+                }
+                final long took = System.nanoTime() - started;
+                Gdx.app.postRunnable(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (turn != generation)
+                            return;
+                        record(took);
+                        finish(turn, player, phase, decision, earliest);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Carry out a decision on the render thread, waiting out what is left of the turn delay first
+     */
+    private void finish(final int turn, final Player player, final GameState.Phase phase, final int decision, long earliest) {
+        long wait = earliest - System.nanoTime();
+        if (wait > 0) {
+            loop.schedule(wait / 1e9f, new Runnable() {
+                @Override
+                public void run() {
+                    if (turn == generation)
+                        finish(turn, player, phase, decision, 0);
+                }
+            });
+            return;
+        }
+
+        busy = false;
+        pending = null;
+        // The same check the engine makes, as the turn may have moved on some other way
+        if (screen.state.getCurrentPlayer() == player && screen.state.phase == phase && screen.currentStage != null)
+            screen.currentStage.aiAction(decision);
+        // Let the loop look for the next turn even if nothing came of this one
+        loop.changed();
+    }
+
+    /**
+     * Drop the turn in progress, its decision is thrown away when it comes back. Called when a round
+     * ends or the screen changes
+     */
+    public void cancel() {
+        generation++;
+        busy = false;
+        if (pending != null)
+            pending.cancel(true);
+        pending = null;
+    }
+
+    /**
+     * Drop the turn in progress and wait for the worker thread to be done with it, so the render thread can
+     * play turns itself without anything else reading the game
+     */
+    public void cancelAndWait() {
+        cancel();
+        try {
+            // The worker runs one thing at a time, so once this has run the decision before it is over
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {}
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void record(long nanos) {
+        decisions++;
+        decisionNanos += nanos;
+        slowestNanos = Math.max(slowestNanos, nanos);
+    }
+
+    public int decisions() { return decisions; }
+
+    /**
+     * The average time a decision took on the worker thread, in milliseconds
+     */
+    public float averageMillis() {
+        return decisions > 0 ? decisionNanos / 1e6f / decisions : 0;
+    }
+
+    public float slowestMillis() { return slowestNanos / 1e6f; }
+
+    /**
+     * Stop the worker thread and log how long decisions took, once the game is over
+     */
+    public void dispose() {
+        cancel();
+        executor.shutdownNow();
+        if (decisions > 0)
+            Gdx.app.log("AiWorker", String.format("%d AI decisions, %.1f ms average, %.1f ms slowest",
+                    decisions, averageMillis(), slowestMillis()));
+    }
+}
@@ -1,7 +1,8 @@
 package com.sabacc;
 
-import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-
+/**
+ * The identity of a single card, images are looked up by id in CardArt
+ */
 public class Card {
     public enum Suit {
         Face,
@@ -10,14 +11,14 @@ public class Card {
         Coins,
         Staves
     }
+    final public byte id;      // The index of this card in the deck, 0 to 75
     final public String name;
     final public int value;
     final public Suit suit;
-    final public Drawable image;
-    public Card(String name, Suit suit, int value, Drawable image) {
+    public Card(byte id, String name, Suit suit, int value) {
+        this.id = id;
         this.name = name;
         this.suit = suit;
         this.value = value;
-        this.image = image;
     }
 }
@@ -0,0 +1,91 @@
+package com.sabacc;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+
+/**
+ * The images for every card, looked up by card id. Only the renderer needs this, the atlas is not
+ * loaded until the first image is asked for and each card image is only created the first time it is drawn
+ *
+ * Atlas names are:
+ * - Suited cards are the suit followed by the value (flasks5), or the rank for ranked cards
+ *   - Commander (saberscmdr), Mistress (coinsmstrss), Master (stavesmstr), Ace (sabersace)
+ * - Face cards are named after the card
+ *   - star, evilone, moderation, demise, balance, endurance, queen, idiot
+ */
+public class CardArt {
+    private Skin cardSkin;
+    final private Drawable[] images;
+    private Drawable cardback;
+    private Drawable selected;
+
+    public CardArt() {
+        images = new Drawable[Deck.SIZE];
+    }
+
+    /**
+     * Load the atlas the first time any image is needed
+     */
+    private Skin skin() {
+        if (cardSkin == null) {
+            // The skin owns the atlas, so disposing the skin disposes the atlas too
+            cardSkin = new Skin(new TextureAtlas(Gdx.files.internal("cards.atlas")));
+        }
+        return cardSkin;
+    }
+
+    public Drawable image(Card c) { return image(c.id); }
+    public Drawable image(int id) {
+        if (images[id] == null)
+            images[id] = skin().getDrawable(atlasName(Deck.card(id)));
+        return images[id];
+    }
+
+    public Drawable cardback() {
+        if (cardback == null)
+            cardback = skin().getDrawable("cardback");
+        return cardback;
+    }
+
+    public Drawable selected() {
+        if (selected == null)
+            selected = skin().getDrawable("selected");
+        return selected;
+    }
+
+    /**
+     * Get the name of the image of a card in the atlas
+     */
+    private static String atlasName(Card c) {
+        if (c.suit == Card.Suit.Face) {
+            switch (c.value) {
+                case -17: return "star";
+                case -15: return "evilone";
+                case -14: return "moderation";
+                case -13: return "demise";
+                case -11: return "balance";
+                case -8: return "endurance";
+                case -2: return "queen";
+                default: return "idiot";
+            }
+        }
+        String suit = c.suit.name().toLowerCase();
+        if (c.value <= 11)
+            return suit + c.value;
+        else if (c.value == 12)
+            return suit + "cmdr";
+        else if (c.value == 13)
+            return suit + "mstrss";
+        else if (c.value == 14)
+            return suit + "mstr";
+        else
+            return suit + "ace";
+    }
+
+    public void dispose() {
+        if (cardSkin != null)
+            cardSkin.dispose();
+    }
+}
@@ -0,0 +1,86 @@
+package com.sabacc;
+
+/**
+ * A histogram of how many cards of each value are in a set of cards, packed exactly into one long
+ *
+ * Each card value gets just enough bits to count every copy of it in the deck, 2 bits for the face
+ * values (2 copies) and 3 bits for 1-15 (4 copies), 61 bits in total. Adding or removing a card is
+ * a single add or subtract of that values unit, and subtracting one set of cards from a set that
+ * holds them is an exact subtraction of the two histograms. Two compositions are equal exactly when
+ * they hold the same number of cards of every value, so a composition can be used as a map key
+ */
+public final class Composition {
+    // Card values run from -17 (The Star) to 15 (Aces)
+    public static final int MIN_VALUE = -17;
+    public static final int MAX_VALUE = 15;
+
+    // Where the count of each value starts and how many bits it has, indexed by value - MIN_VALUE
+    private static final int[] SHIFT = new int[MAX_VALUE - MIN_VALUE + 1];
+    private static final int[] BITS = new int[MAX_VALUE - MIN_VALUE + 1];
+
+    // Every card in the deck
+    public static final long FULL;
+
+    static {
+        int[] copies = new int[SHIFT.length];
+        for (int id = 0; id < Deck.SIZE; id++)
+            copies[Deck.card(id).value - MIN_VALUE]++;
+        int shift = 0;
+        long full = 0;
+        for (int i = 0; i < SHIFT.length; i++) {
+            if (copies[i] == 0)
+                continue;
+            SHIFT[i] = shift;
+            BITS[i] = 32 - Integer.numberOfLeadingZeros(copies[i]);
+            full += (long) copies[i] << shift;
+            shift += BITS[i];
+        }
+        if (shift > 64)
+            throw new IllegalStateException("The deck has too many distinct values to fit in a composition");
+        FULL = full;
+    }
+
+    private Composition() {}
+
+    /**
+     * What adding one card of this value adds to a composition
+     */
+    public static long unit(int value) {
+        int i = value - MIN_VALUE;
+        return BITS[i] == 0 ? 0 : 1L << SHIFT[i];
+    }
+
+    /**
+     * The composition of a set of card ids, given as a bitset the same way a Hand keeps it
+     * @param low card ids 0-63
+     * @param high card ids 64-75
+     */
+    public static long of(long low, long high) {
+        long c = 0;
+        for (long b = low; b != 0; b &= b - 1)
+            c += unit(Deck.card(Long.numberOfTrailingZeros(b)).value);
+        for (long b = high; b != 0; b &= b - 1)
+            c += unit(Deck.card(64 + Long.numberOfTrailingZeros(b)).value);
+        return c;
+    }
+
+    /**
+     * How many cards of a value are in a composition
+     */
+    public static int count(long composition, int value) {
+        int i = value - MIN_VALUE;
+        if (BITS[i] == 0)
+            return 0;
+        return (int)((composition >>> SHIFT[i]) & ((1L << BITS[i]) - 1));
+    }
+
+    /**
+     * How many cards are in a composition in total
+     */
+    public static int size(long composition) {
+        int n = 0;
+        for (int v = MIN_VALUE; v <= MAX_VALUE; v++)
+            n += count(composition, v);
+        return n;
+    }
+}
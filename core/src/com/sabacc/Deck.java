@@ -1,115 +1,125 @@
 package com.sabacc;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.scenes.scene2d.ui.Skin;
-import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
-import com.badlogic.gdx.utils.Array;
+import com.sabacc.engine.Rng;
 
 public class Deck {
-    // An array of all cards in the game, for reshuffling the deck
-    final private Array<Card> allCards;
+    // How many cards are in a full deck
+    public static final int SIZE = 76;
 
-    // The texture atlas and skin to use when allocating card images
-    final private TextureAtlas atlas;
-    final private Skin cardSkin;
-    final private Drawable cardback;
-    public Drawable cardback() { return cardback; }
-    final private Drawable selected;
-    public Drawable selected() { return selected; }
+    // An array of all cards in the game, indexed by their card id. Cards never change so every deck shares them
+    private static final Card[] allCards = generateDeck();
+    public static Card card(int id) { return allCards[id]; }
 
-    // The current deck
-    private Array<Card> cards;
-    public Array<Card> cards() { return cards; }
-    public boolean isEmpty() { return cards.size == 0; }
+    // The random stream of the table this deck belongs to
+    final private Rng rng;
+    public Rng rng() { return rng; }
+
+    // The current deck, the first remaining ids of the pool are the cards that have not been drawn yet
+    // The pool always holds every card id exactly once so the deck can be refreshed without copying
+    final private byte[] pool;
+    private int remaining;
+    public int size() { return remaining; }
+    public boolean isEmpty() { return remaining == 0; }
+    public int remainingId(int i) { return pool[i]; }    // The id of the i-th card still in the deck, in no particular order
 
     /**
-     * Constructor, sets up the array of cards and generates the deck
+     * Constructor, sets up the pool of card ids. Card images are looked up separately in CardArt so
+     * a deck can be created without a libGDX context
+     * @param rng the random stream to shuffle with
      */
-    public Deck() {
-        allCards = new Array<Card>(false, 76);
-        cards = new Array<Card>(false, 76);
-        atlas = new TextureAtlas(Gdx.files.internal("cards.atlas"));
-        cardSkin = new Skin();
-        cardSkin.addRegions(atlas);
-        cardback = cardSkin.getDrawable("cardback");
-        selected = cardSkin.getDrawable("selected");
-        generateDeck();
+    public Deck(Rng rng) {
+        this.rng = rng;
+        pool = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++)
+            pool[i] = (byte) i;
         refreshDeck();
     }
 
     /**
-     * Create a new deck of cards, the configuration is:
+     * Create every card in the deck, the configuration is:
      * - Four Suites (Sabers, Flasks, Coins, Staves):
-     *   - Values 1-11                      flasks5
+     *   - Values 1-11
      *   - Ranked Cards:
-     *     - Commander (12)                 saberscmdr
-     *     - Mistress (13)                  coinsmstrss
-     *     - Master (14)                    stavesmstr
-     *     - Ace (15)                       sabersace
+     *     - Commander (12)
+     *     - Mistress (13)
+     *     - Master (14)
+     *     - Ace (15)
      * - Two copies of each face card
-     *   - The Star (-17)                   star
-     *   - The Evil One (-15)               evilone
-     *   - Moderation (-14)                 moderation
-     *   - Demise (-13)                     demise
-     *   - Balance (-11)                    balance
-     *   - Endurance (-8)                   endurance
-     *   - Queen of Air and Darkness (-2)   queen
-     *   - Idiot (0)                        idiot
+     *   - The Star (-17)
+     *   - The Evil One (-15)
+     *   - Moderation (-14)
+     *   - Demise (-13)
+     *   - Balance (-11)
+     *   - Endurance (-8)
+     *   - Queen of Air and Darkness (-2)
+     *   - Idiot (0)
      */
-    private void generateDeck() {
+    private static Card[] generateDeck() {
+        String[] faceNames = { "The Star", "The Evil One", "Moderation", "Demise", "Balance", "Endurance",
+                "Queen of Air and Darkness", "Idiot" };
+        int[] faceValues = { -17, -15, -14, -13, -11, -8, -2, 0 };
+
+        Card[] cards = new Card[SIZE];
+        int n = 0;
         for (Card.Suit s : Card.Suit.values()) {
             if (s == Card.Suit.Face) {
                 for (int i = 0; i < 2; i++) {
-                    allCards.add(new Card("The Star", s, -17, cardSkin.getDrawable("star")));
-                    allCards.add(new Card("The Evil One", s, -15, cardSkin.getDrawable("evilone")));
-                    allCards.add(new Card("Moderation", s, -14, cardSkin.getDrawable("moderation")));
-                    allCards.add(new Card("Demise", s, -13, cardSkin.getDrawable("demise")));
-                    allCards.add(new Card("Balance", s, -11, cardSkin.getDrawable("balance")));
-                    allCards.add(new Card("Endurance", s, -8, cardSkin.getDrawable("endurance")));
-                    allCards.add(new Card("Queen of Air and Darkness", s, -2, cardSkin.getDrawable("queen")));
-                    allCards.add(new Card("Idiot", s, 0, cardSkin.getDrawable("idiot")));
+                    for (int j = 0; j < faceNames.length; j++) {
+                        cards[n] = new Card((byte) n, faceNames[j], s, faceValues[j]);
+                        n++;
+                    }
                 }
                 continue;
             }
             for (int i = 1; i <= 15; i++) {
                 String name;
-                String atlasName;
-                if (i <= 11) {
+                if (i <= 11)
                     name = i + " of " + s.name();
-                    atlasName = s.name().toLowerCase() + i;
-                } else if (i == 12) {
+                else if (i == 12)
                     name = "Commander of " + s.name();
-                    atlasName = s.name().toLowerCase() + "cmdr";
-                } else if (i == 13) {
+                else if (i == 13)
                     name = "Mistress of " + s.name();
-                    atlasName = s.name().toLowerCase() + "mstrss";
-                } else if (i == 14) {
+                else if (i == 14)
                     name = "Master of " + s.name();
-                    atlasName = s.name().toLowerCase() + "mstr";
-                } else {
+                else
                     name = "Ace of " + s.name();
-                    atlasName = s.name().toLowerCase() + "ace";
-                }
-                allCards.add(new Card(name, s, i, cardSkin.getDrawable(atlasName)));
+                cards[n] = new Card((byte) n, name, s, i);
+                n++;
             }
         }
+        return cards;
     }
 
     /**
-     * Copy all cards into the current array of cards
+     * Put every card back into the deck, the pool already holds every card id so nothing needs to be copied
      */
     public void refreshDeck() {
-        cards = new Array<Card>(allCards);
+        remaining = SIZE;
+    }
+
+    /**
+     * Pop a random card id from the deck, one step of a Fisher-Yates shuffle. The drawn id is swapped
+     * to just past the end of the remaining cards
+     * @return the card id, or -1 if the deck is empty
+     */
+    public int drawId() {
+        if (remaining == 0)
+            return -1;
+        int i = rng.nextInt(remaining);
+        remaining--;
+        byte id = pool[i];
+        pool[i] = pool[remaining];
+        pool[remaining] = id;
+        return id;
     }
 
     /**
      * Pop a random card from the deck
      */
     public Card drawCard() {
-        if (cards.size == 0)
+        int id = drawId();
+        if (id < 0)
             return null;
-        int i = (int)(Math.random() * cards.size);
-        return cards.removeIndex(i);
+        return allCards[id];
     }
 }
@@ -0,0 +1,134 @@
+package com.sabacc;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Timer;
+
+/**
+ * Moves the game along from a queue of timed events instead of from frames. Anything that has to
+ * happen later, such as an AI turn after its delay, is scheduled here and run on the render thread
+ * when it is due, whether or not a frame is drawn in the meantime
+ *
+ * The game tells the loop whenever something has changed. The loop then lets the game check whether an
+ * AI player needs to start their turn, once for any number of changes made by the same action. With
+ * nothing queued, nothing is drawn and nothing runs
+ *
+ * Events are run from a libGDX Timer task, and libGDX draws a frame after every runnable it runs for the
+ * timer or for Gdx.app.postRunnable. So every event run, and every AI decision posted back, draws a
+ * frame whether or not anything visible changed. The loop only keeps the game from needing frames to
+ * move along, it does not hold frames back
+ */
+public class GameLoop {
+    private static class Event {
+        final long due;
+        final Runnable action;
+
+        Event(long due, Runnable action) {
+            this.due = due;
+            this.action = action;
+        }
+    }
+
+    final private Timer timer;
+    final private Runnable settle;
+
+    // Events waiting to run, the soonest first
+    final private Array<Event> queue;
+
+    // The timer task that wakes the loop for the soonest event, and when it is set for
+    private Timer.Task wake;
+    private long wakeAt;
+
+    // Set when something has changed and the settle step has been queued but not run yet
+    private boolean changed;
+
+    /**
+     * @param settle run once after each batch of changes, to start whatever should happen next
+     */
+    public GameLoop(Runnable settle) {
+        this.settle = settle;
+        timer = new Timer();
+        queue = new Array<Event>();
+    }
+
+    /**
+     * Run an action on the render thread once this many seconds have passed
+     */
+    public void schedule(float seconds, Runnable action) {
+        Event e = new Event(System.nanoTime() + (long)(seconds * 1e9), action);
+        int i = queue.size;
+        while (i > 0 && queue.get(i - 1).due > e.due)
+            i--;
+        queue.insert(i, e);
+        if (i == 0)
+            arm();
+    }
+
+    /**
+     * Something has changed, draw it and see what should happen next once the current action is over
+     */
+    public void changed() {
+        if (changed)
+            return;
+        changed = true;
+        schedule(0, new Runnable() {
+            @Override
+            public void run() {
+                changed = false;
+                // Most backends draw after a timer task on their own, this makes sure of it on the rest
+                Gdx.graphics.requestRendering();
+                settle.run();
+            }
+        });
+    }
+
+    /**
+     * Drop every event that has not run yet
+     */
+    public void clear() {
+        queue.clear();
+        changed = false;
+        if (wake != null)
+            wake.cancel();
+        wake = null;
+    }
+
+    /**
+     * Stop the loop for good
+     */
+    public void dispose() {
+        clear();
+        timer.stop();
+        timer.clear();
+    }
+
+    /**
+     * Set the timer for the soonest event, if it is not already set for it
+     */
+    private void arm() {
+        if (queue.size == 0)
+            return;
+        long due = queue.first().due;
+        if (wake != null && wake.isScheduled() && wakeAt <= due)
+            return;
+        if (wake != null)
+            wake.cancel();
+        wakeAt = due;
+        wake = timer.scheduleTask(new Timer.Task() {
+            @Override
+            public void run() {
+                wake = null;
+                runDue();
+            }
+        }, Math.max(0, (due - System.nanoTime()) / 1e9f));
+    }
+
+    /**
+     * Run every event that is due, including any they schedule to run straight away, then wait for the next
+     */
+    private void runDue() {
+        while (queue.size > 0 && queue.first().due <= System.nanoTime())
+            queue.removeIndex(0).action.run();
+        arm();
+    }
+}
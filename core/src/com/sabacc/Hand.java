@@ -0,0 +1,137 @@
+package com.sabacc;
+
+/**
+ * A set of cards, stored as a bitset over the 76 card ids (two longs) along with a running total of
+ * their values. The value, value histogram, Idiot's Array check, membership and hash are all O(1)
+ *
+ * The order cards were added in is also kept, only so that they are drawn on screen in that order
+ */
+public class Hand {
+    // Bitsets of every card with a value needed for an Idiot's Array, the Idiot (0), any 2 and any 3
+    private static final long IDIOT_LOW;
+    private static final long IDIOT_HIGH;
+    private static final long TWO_LOW;
+    private static final long TWO_HIGH;
+    private static final long THREE_LOW;
+    private static final long THREE_HIGH;
+    static {
+        long[] idiot = new long[2];
+        long[] two = new long[2];
+        long[] three = new long[2];
+        for (int id = 0; id < Deck.SIZE; id++) {
+            int value = Deck.card(id).value;
+            if (value == 0)
+                idiot[id >>> 6] |= 1L << id;
+            else if (value == 2)
+                two[id >>> 6] |= 1L << id;
+            else if (value == 3)
+                three[id >>> 6] |= 1L << id;
+        }
+        IDIOT_LOW = idiot[0];
+        IDIOT_HIGH = idiot[1];
+        TWO_LOW = two[0];
+        TWO_HIGH = two[1];
+        THREE_LOW = three[0];
+        THREE_HIGH = three[1];
+    }
+
+    // Card ids 0-63 and 64-75
+    private long low;
+    private long high;
+    public long low() { return low; }
+    public long high() { return high; }
+
+    // The total value of every card
+    private int value;
+    public int value() { return value; }
+
+    // How many cards of each value are in this hand, see Composition
+    private long composition;
+    public long composition() { return composition; }
+
+    // The card ids in the order they were added
+    private byte[] order;
+    private int size;
+    public int size() { return size; }
+
+    public Hand() {
+        order = new byte[8];
+    }
+
+    public boolean contains(int id) {
+        if (id < 64)
+            return (low & (1L << id)) != 0;
+        return (high & (1L << id)) != 0;
+    }
+
+    /**
+     * @return the i-th card that was added to this hand and is still in it
+     */
+    public Card get(int i) { return Deck.card(order[i]); }
+    public int id(int i) { return order[i]; }
+
+    public void add(Card c) {
+        if (size == order.length) {
+            byte[] bigger = new byte[order.length * 2];
+            System.arraycopy(order, 0, bigger, 0, size);
+            order = bigger;
+        }
+        order[size] = c.id;
+        size++;
+        if (c.id < 64)
+            low |= 1L << c.id;
+        else
+            high |= 1L << c.id;
+        value += c.value;
+        composition += Composition.unit(c.value);
+    }
+
+    /**
+     * Remove a card from this hand
+     * @return true if the card was in this hand
+     */
+    public boolean remove(Card c) {
+        if (!contains(c.id))
+            return false;
+        int i = 0;
+        while (order[i] != c.id)
+            i++;
+        System.arraycopy(order, i + 1, order, i, size - i - 1);
+        size--;
+        if (c.id < 64)
+            low &= ~(1L << c.id);
+        else
+            high &= ~(1L << c.id);
+        value -= c.value;
+        composition -= Composition.unit(c.value);
+        return true;
+    }
+
+    public void clear() {
+        low = 0;
+        high = 0;
+        value = 0;
+        composition = 0;
+        size = 0;
+    }
+
+    /**
+     * Determine if this hand is the idiots array, consisting of exactly the Idiot (0), a 2 and a 3
+     */
+    public boolean idiotsArray() {
+        return size == 3
+                && ((low & IDIOT_LOW) | (high & IDIOT_HIGH)) != 0
+                && ((low & TWO_LOW) | (high & TWO_HIGH)) != 0
+                && ((low & THREE_LOW) | (high & THREE_HIGH)) != 0;
+    }
+
+    /**
+     * A hash of which cards are in this hand, the same cards always have the same hash no matter the order
+     */
+    public long hash() {
+        long h = low * 0x9e3779b97f4a7c15L + high;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
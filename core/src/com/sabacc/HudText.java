@@ -0,0 +1,44 @@
+package com.sabacc;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+
+/**
+ * A line of text on the screen made of a fixed label and a number, such as the pots and credits. The text
+ * is laid out into a font cache only when the number changes, every other frame draws the cached glyphs
+ * as they are, so drawing it makes no garbage
+ */
+public class HudText {
+    final private BitmapFontCache cache;
+
+    // The label, followed by the number it was last laid out with
+    final private StringBuilder text;
+    final private int label;
+    private int value;
+    private boolean laidOut;
+
+    public HudText(BitmapFont font, String label) {
+        cache = font.newFontCache();
+        cache.setColor(font.getColor());
+        text = new StringBuilder(label);
+        this.label = label.length();
+    }
+
+    /**
+     * Draw the label and a number, laying the text out again only if the number is not the one last drawn
+     * @param x the left edge of the text
+     * @param y the top of the text, the same as for BitmapFont.draw
+     */
+    public void draw(Batch batch, int value, float x, float y) {
+        if (!laidOut || value != this.value) {
+            text.setLength(label);
+            text.append(value);
+            cache.setText(text, 0, 0);
+            this.value = value;
+            laidOut = true;
+        }
+        cache.setPosition(x, y);
+        cache.draw(batch);
+    }
+}
@@ -0,0 +1,85 @@
+package com.sabacc;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.sabacc.engine.GameEvent;
+
+/**
+ * The latest game messages, kept in a ring of as many entries as are shown so that a long round never
+ * takes more memory. Each entry is a copy of its GameEvent along with the glyph layout of its message
+ *
+ * A layout is made the first time its entry is drawn and then drawn as it is on every frame after, so the
+ * text is only ever laid out once. Messages pushed out before they are ever drawn are never laid out at all.
+ * Entries and their layouts are reused as new messages come in, nothing is allocated once the ring is full
+ */
+public class MessageLog {
+    final private BitmapFont font;
+
+    // The ring, with the newest entry at head
+    final private GameEvent[] events;
+    final private GlyphLayout[] layouts;
+    final private boolean[] laidOut;
+    private int head;
+    private int size;
+
+    // Messages are written here to be laid out, rather than into a new string each time
+    final private StringBuilder text;
+
+    /**
+     * @param capacity how many messages are kept, the most that are ever drawn
+     */
+    public MessageLog(BitmapFont font, int capacity) {
+        this.font = font;
+        events = new GameEvent[capacity];
+        layouts = new GlyphLayout[capacity];
+        laidOut = new boolean[capacity];
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new GameEvent();
+            layouts[i] = new GlyphLayout();
+        }
+        text = new StringBuilder();
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Add a message, pushing out the oldest once the log is full
+     * @param e the event, copied so it can go back to its pool
+     */
+    public void add(GameEvent e) {
+        head = (head + 1) % events.length;
+        events[head].set(e);
+        laidOut[head] = false;
+        size = Math.min(size + 1, events.length);
+    }
+
+    public void add(String message) {
+        head = (head + 1) % events.length;
+        events[head].text(message);
+        laidOut[head] = false;
+        size = Math.min(size + 1, events.length);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Draw every message, the newest at the bottom line and the rest above it
+     * @param y the baseline of the newest message
+     * @param lineHeight how far apart the lines are
+     */
+    public void draw(Batch batch, float x, float y, float lineHeight) {
+        for (int i = 0; i < size; i++) {
+            int e = (head - i + events.length) % events.length;
+            if (!laidOut[e]) {
+                text.setLength(0);
+                events[e].append(text);
+                layouts[e].setText(font, text);
+                laidOut[e] = true;
+            }
+            font.draw(batch, layouts[e], x, y + i * lineHeight);
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package com.sabacc;
 
-import com.badlogic.gdx.utils.Array;
-import com.sabacc.gamestage.PlayerButton;
-import com.sabacc.screens.GameScreen;
+import com.sabacc.ai.Strategy;
+import com.sabacc.engine.GameState;
 
 public class Player {
     // A player has to have a name
@@ -17,53 +16,50 @@ public class Player {
     public int credits() { return credits; }
     public void modifyCredits(int x) { credits += x; }
 
-    // A decimal of the current amount of credits, when betting a player will bet a minimum of their
-    // minbid and fold if it is above their maxbid
-    private float minbid;
-    private float maxbid;
-    public void setBidRange(float min, float max) { minbid = min; maxbid = max; }
+    // How this player bets and draws, only AI players have one
+    private Strategy strategy;
+    public Strategy strategy() { return strategy; }
+    public void setStrategy(Strategy strategy) { this.strategy = strategy; }
 
     // How much a player has bid over an entire betting round, to stop them from just raising every
     // single time it is their turn to raise
     public int roundbid;
 
     // Handling the hand
-    private final Array<Card> hand;
-    public Array<Card> hand() { return hand; }
-    public int numCards() { return hand.size; }
+    private final Hand hand;
+    public Hand hand() { return hand; }
+    public int numCards() { return hand.size(); }
 
     // Handling the Interference Field
-    private final Array<Card> field;
-    public Array<Card> field() { return field; }
+    private final Hand field;
+    public Hand field() { return field; }
     public void fieldCard(Card c) {
-        if (hand.removeValue(c, true))
+        if (hand.remove(c))
             field.add(c);
     }
-    public int numField() { return field.size; }
-    public int fieldValue() {
-        int x = 0;
-        for (Card c : field)
-            x += c.value;
-        return x;
-    }
+    public int numField() { return field.size(); }
+    public int fieldValue() { return field.value(); }
     public int totalCards() { return numField() + numCards(); }
 
-    // The current score
-    private int score;
-    public int score() { return score; }
-    public void refreshScore() { score = 0; }
+    // The current score, the hand and field both keep a running total so this never needs to be summed
+    public int score() { return hand.value() + field.value(); }
+
+    /**
+     * Remove every card from the players hand and interference field
+     */
+    public void clearCards() {
+        hand.clear();
+        field.clear();
+    }
 
     // Some other player bools that can be toggled
     public boolean displayHand;    // If the score and hand should be displayed between rounds
-    public PlayerButton button;
-    public void updateButton() { if (button != null) button.update(); }
 
     /**
      * A function to simply add a card to the players hand and add its value
      * @param c the card to add
      */
     public void addCard(Card c) {
-        score += c.value;
         hand.add(c);
     }
 
@@ -74,8 +70,6 @@ public class Player {
      */
     public void sabaccShift(Deck deck) {
         int n = numCards();
-        for (Card c : hand)
-            score -= c.value;
         hand.clear();
         while (n > 0) {
             n--;
@@ -89,16 +83,15 @@ public class Player {
     public boolean folded;
     public boolean hasDrawn; // Not necessarily drawn a card, has gone in the drawing round
 
-    // Some values if the player has gone all in or not
+    // If the player has gone all in this round, what they can win is kept by the RulesEngine's PotLedger
     public boolean isAllIn;
-    public int allInValue;
 
     public Player(boolean isPlayer, String name, int credits) {
         this.isHuman = isPlayer;
         this.name = name;
         this.credits = credits;
-        hand = new Array<Card>();
-        field = new Array<Card>();
+        hand = new Hand();
+        field = new Hand();
     }
 
     /**
@@ -107,100 +100,24 @@ public class Player {
      * @return true if an idiot's array is held
      */
     public boolean idiotsArray() {
-        if (numCards() != 3)
-            return false;
-        boolean zero = false;
-        boolean two = false;
-        boolean three = false;
-        for (Card c : hand) {
-            if (c.value == 0)
-                zero = true;
-            else if (c.value == 2)
-                two = true;
-            else if (c.value == 3)
-                three = true;
-            else
-                return false;
-        }
-        return zero && two && three;
+        return hand.idiotsArray();
     }
 
     /**
      * A method that determines how much this player wants to bet, raise, or if they fold
-     * @param mainPot the current value of the main pot
-     * @param bid the current bid of the hand
-     * @param players the array of players in the game
+     * @param state the current game
      * @return -1 if the player folds, -2 if the player goes all in, or an integer of how much this player will bet
      */
-    public int makeBet(int mainPot, int bid, Array<Player> players, int ante, boolean isCalled) {
-        // For now, make it extremely simple
-        // Folding Conditions: (-1)
-        //  - If the player cannot afford to call the bid and their hand is bad
-        //  - If the current bid is greater than this players max bid and they do not have a pure sabacc
-        //  - If the hand value is bombed out, then fold
-        // All in Conditions: (-2)
-        //  - If the player cannot afford to call the bid and their hand is good
-        //  - If the player has less than 2x the ante credits
-        // Raising Conditions:
-        //  - If the player has a hand > 17, raise by minbid
-        //  - If the player has a pure sabacc, raise by double minbid
-        //  - If the player would bid and the current bid or their round bid is already > those values, just call
-        // Otherwise, just call
-        int aScore = Math.abs(score);
-
-        // If they have or will have less than 40 credits, always go all in as they will have to drop if they fold
-        if (bid - currentBid > 0 && credits - (bid - currentBid) < ante * 2)
-            return -2;
-
-        // If they cannot afford to call:
-        if (bid - currentBid > credits) {
-            // If their hand is bad, fold
-            if (aScore < 20)
-                return -1;
-            // If their hand is good, go all in
-            else
-                return -2;
-        }
-
-        // Fold if there is a bid and this hand sucks
-        if (bid - maxbid > 0 && aScore < 17)
-            return -1;
-
-        // If the current bid is greater than the max bid and you do not have a pure sabacc, fold
-        if (bid > maxbid * mainPot && aScore != 23)
-            return -1;
-        // If they are bombed out and there is a nonzero bid, fold
-        if (aScore > 23 && (bid > 0 || isCalled))
-            return -1;
-        // If they have a bad hand with no chance of drawing more cards, fold
-        if (numCards() == 5 && aScore < 14 && bid > 0)
-            return -1;
-
-        // If they have a pure sabacc, raise the bid by double minbid
-        if (aScore == 23 && bid < 2*minbid * credits && roundbid < 2*maxbid * credits)
-            return bid - currentBid + (int)(credits * 2 * minbid);
-
-        // If they have a good hand, raise the bid by minbid
-        if (aScore > 17 && aScore < 24 && bid < minbid * credits && roundbid < maxbid * credits)
-            return bid - currentBid + (int)(credits * minbid);
-
-        // Otherwise, match the bid
-        return bid - currentBid;
+    public int makeBet(GameState state) {
+        return strategy.bet(state, this);
     }
 
     /**
      * A method that decides if this player should call, stand, or draw in the drawing round
-     * Very simple for now, keep drawing until their hand value is 18-23, then call
-     * @param untilCall how many rounds left until the round can be called
+     * @param state the current game
      * @return -1 if this player calls, 0 if they stand, 1 if they draw
      */
-    public int drawChoice(int untilCall) {
-        if (Math.abs(score) < 18 || (Math.abs(score) > 24 && Math.abs(score) < 30 && numCards() < 4))
-            return 1;
-        if (untilCall <= 0 && Math.abs(score) > 17 && Math.abs(score) < 24)
-            return -1;
-        //if (untilCall <= 0 && Math.random() < 0.2) // Randomly call 20% of the time if able, to prevent random loops
-        //  return -1;                               // We don't really need this as eventually Sabacc Shifts will force players into good hands to call
-        return 0;
+    public int drawChoice(GameState state) {
+        return strategy.draw(state, this);
     }
 }
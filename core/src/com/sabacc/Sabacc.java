@@ -9,6 +9,8 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.sabacc.ai.CfrPolicy;
+import com.sabacc.ai.PolicyTable;
 import com.sabacc.screens.StartScreen;
 
 /**
@@ -23,6 +25,12 @@ public class Sabacc extends Game {
 	public BitmapFont font24;
 	public BitmapFont msgFont;
 
+	// The images of every card, shared by every game so the card atlas is only ever loaded once
+	public CardArt cardArt;
+
+	// The trained CFR betting policy, mapped rather than read so it loads at once however big it is. Null if there is none
+	public CfrPolicy policy;
+
 	// Width and height of the camera screens
 	public int width;
 	public int height;
@@ -41,6 +49,8 @@ public class Sabacc extends Game {
 	public boolean autoDisplayAndHide;	// Automatically open and close opponents at the end and start of rounds
 	public float shiftChance;
 	public float timeForDoubleTap;	// How long the player has between taps to double click a card to move it to the interference field
+	public boolean autoFastForward;	// Play out the rest of the round without delays once the player has folded or gone all in
+	public boolean logHands;	// Keep a log of every action in local storage, to play games back while debugging
 	
 	@Override
 	public void create () {
@@ -48,6 +58,9 @@ public class Sabacc extends Game {
 		font32 = new BitmapFont(Gdx.files.internal("anakin32.fnt"));
 		font24 = new BitmapFont(Gdx.files.internal("anakin24.fnt"));
 		msgFont = new BitmapFont(Gdx.files.internal("dejavu20.fnt"));
+		cardArt = new CardArt();
+		PolicyTable table = PolicyTable.load(Gdx.files.internal("cfr-policy.bin"));
+		policy = table != null ? new CfrPolicy(table) : null;
 
 		// Calculate the camera dimensions
 		// Width is constant, height is relative to width based on screen size
@@ -64,8 +77,11 @@ public class Sabacc extends Game {
 		autoDisplayAndHide = true;
 		shiftChance = 0.05f;	// 5% chance for a sabacc shift after every player takes a turn, should happen around once, twice is not uncommon, thrice is rare
 		timeForDoubleTap = 0.5f;	// half a second
+		autoFastForward = true;
+		logHands = false;
 
-		// Make the graphics non-continuous, to save battery
+		// Make the graphics non-continuous, to save battery. Input asks for frames on its own and the
+		// GameLoop asks for one whenever the game changes
 		Gdx.graphics.setContinuousRendering(false);
 		Gdx.graphics.requestRendering();
 
@@ -92,5 +108,6 @@ public class Sabacc extends Game {
 		font32.dispose();
 		font24.dispose();
 		msgFont.dispose();
+		cardArt.dispose();
 	}
 }
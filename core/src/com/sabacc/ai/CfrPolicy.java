@@ -0,0 +1,125 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.Rng;
+
+/**
+ * A betting policy learned by the CfrTrainer. Betting decisions are grouped into information sets by
+ * a few coarse features of what the player can see, and the policy holds how often to take each action
+ * in each of them, in a PolicyTable
+ *
+ * Only reads its table, so one policy can be shared by every player and thread
+ */
+public class CfrPolicy {
+    final private PolicyTable table;
+
+    public CfrPolicy(PolicyTable table) {
+        this.table = table;
+    }
+
+    public long iterations() { return table.iterations(); }
+    public int size() { return table.size(); }
+
+    /**
+     * Pick an action from the average strategy of an information set
+     * @param legal a bit for each RoundModel betting action that can be taken
+     * @param probabilities scratch space of RoundModel.ACTIONS floats
+     * @return the action, or MATCH if this information set never came up in training
+     */
+    int choose(int key, int legal, Rng rng, float[] probabilities) {
+        if (!table.chances(key, legal, probabilities))
+            return RoundModel.MATCH;
+        float r = rng.nextFloat();
+        int last = RoundModel.MATCH;
+        for (int a = 0; a < RoundModel.ACTIONS; a++) {
+            if ((legal & (1 << a)) == 0)
+                continue;
+            last = a;
+            r -= probabilities[a];
+            if (r < 0)
+                return a;
+        }
+        // Rounding can leave a sliver at the end
+        return last;
+    }
+
+    /**
+     * @return the hand value of a player, 24 for an Idiot's Array, or -1 if they are bombed out,
+     *         the same as the RoundModel ranks hands
+     */
+    static int rank(Player p) {
+        if (p.idiotsArray())
+            return 24;
+        int v = Math.abs(p.score());
+        if (v > 23 || v == 0)
+            return -1;
+        return v;
+    }
+
+    /**
+     * The information set of a betting decision. Training and play both key decisions through here, so
+     * any change to the features makes old tables useless
+     * @param rank the hand rank from rank(), or 0 before any cards are dealt
+     * @param toCall how many credits it takes to match the bid
+     * @param pot the main pot
+     * @param raises how many times this player has raised this betting round
+     * @param opponents how many other players have not folded
+     * @param canCall if the hand can be called in the next drawing round
+     */
+    static int key(int rank, int cards, int toCall, int pot, int credits, int ante, int raises, int opponents,
+                   boolean isCalled, boolean canCall) {
+        int hand;
+        if (rank == 0)
+            hand = 0;
+        else if (rank < 0)
+            hand = 1;
+        else if (rank < 10)
+            hand = 2;
+        else if (rank < 14)
+            hand = 3;
+        else if (rank < 16)
+            hand = 4;
+        else if (rank < 18)
+            hand = 5;
+        else if (rank < 20)
+            hand = 6;
+        else if (rank < 22)
+            hand = 7;
+        else
+            hand = rank - 14;   // 22, 23 and the Idiot's Array each get their own
+
+        int size = Math.min(Math.max(cards - 2, 0), 3);
+
+        int price;
+        if (toCall <= 0)
+            price = 0;
+        else if (toCall * 4 <= pot)
+            price = 1;
+        else if (toCall <= pot)
+            price = 2;
+        else
+            price = 3;
+
+        // How deep this player is after calling, against the pot and the ante they need to stay in
+        int left = credits - toCall;
+        int stack;
+        if (left <= 0)
+            stack = 3;
+        else if (left < ante * 4)
+            stack = 2;
+        else if (left < pot * 2)
+            stack = 1;
+        else
+            stack = 0;
+
+        int key = hand;
+        key = key << 2 | size;
+        key = key << 2 | price;
+        key = key << 2 | stack;
+        key = key << 2 | Math.min(raises, 2);
+        key = key << 2 | Math.min(Math.max(opponents - 1, 0), 2);
+        key = key << 1 | (isCalled ? 1 : 0);
+        key = key << 1 | (canCall ? 1 : 0);
+        return key;
+    }
+}
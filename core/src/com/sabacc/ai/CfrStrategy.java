@@ -0,0 +1,85 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.Rng;
+
+/**
+ * Bets from a policy learned offline by the CfrTrainer, picking each action at random with the chances
+ * the policy gives it. Draws the same way as the ThresholdStrategy, which is close to the drawing the
+ * policy was trained against
+ */
+public class CfrStrategy implements Strategy {
+    final private CfrPolicy policy;
+    final private ThresholdStrategy drawing;
+    final private float[] probabilities = new float[RoundModel.ACTIONS];
+
+    // This player's own random stream to pick actions with, rather than the table's
+    final private Rng rng;
+
+    // How many times this player has raised in the current betting round
+    private int raises;
+
+    /**
+     * @param policy the trained policy, it may be shared by every CFR player
+     * @param rng the stream split off for this player when they were seated
+     */
+    public CfrStrategy(CfrPolicy policy, Rng rng) {
+        this.policy = policy;
+        this.rng = rng;
+        drawing = new ThresholdStrategy(0.2f, 0.6f);
+    }
+
+    @Override
+    public int bet(GameState state, Player me) {
+        int toCall = state.currentBid - me.currentBid;
+        int credits = me.credits();
+        int opponents = -1;
+        for (Player p : state.players)
+            if (!p.folded)
+                opponents++;
+
+        // The same actions the trainer's model allows
+        int legal = 1 << RoundModel.MATCH;
+        if (toCall > 0 || state.isCalled)
+            legal |= 1 << RoundModel.FOLD;
+        int raise = Math.max(state.ante, (int)(credits * RoundModel.RAISE_SIZE));
+        if (raises < RoundModel.MAX_RAISES && credits >= toCall + raise)
+            legal |= 1 << RoundModel.RAISE;
+        if (raises < RoundModel.MAX_RAISES && credits > toCall)
+            legal |= 1 << RoundModel.ALL_IN;
+
+        int rank = state.startOfRound ? 0 : CfrPolicy.rank(me);
+        int key = CfrPolicy.key(rank, me.numCards(), toCall, state.mainPot, credits, state.ante, raises, opponents,
+                state.isCalled, state.untilCall <= 0);
+        int action = policy.choose(key, legal, rng, probabilities);
+
+        if (action == RoundModel.FOLD)
+            return -1;
+        if (action == RoundModel.ALL_IN) {
+            raises++;
+            return -2;
+        }
+        if (action == RoundModel.RAISE) {
+            raises++;
+            return toCall + raise >= credits ? -2 : toCall + raise;
+        }
+        return toCall > credits ? -2 : toCall;
+    }
+
+    @Override
+    public int draw(GameState state, Player me) {
+        return drawing.draw(state, me);
+    }
+
+    @Override
+    public void bettingRoundStarted(GameState state) {
+        raises = 0;
+    }
+
+    // The policy only looks at the table as it is when betting
+    @Override public void roundStarted(GameState state) {}
+    @Override public void playerBet(GameState state, Player p, int amount) {}
+    @Override public void playerFolded(GameState state, Player p) {}
+    @Override public void sabaccShift(GameState state) {}
+}
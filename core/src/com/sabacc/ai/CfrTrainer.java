@@ -0,0 +1,246 @@
+package com.sabacc.ai;
+
+import com.sabacc.engine.Rng;
+import com.sabacc.engine.SplittableRng;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Learns a betting policy by outcome sampling Monte Carlo CFR, with every seat of a RoundModel sharing
+ * one table in self play. Each iteration plays a single round from the ante: the seat being trained
+ * explores every betting action some of the time, everybody else bets from the current strategy, and
+ * drawing is left to the model's default AI. The result is then fed back as sampled regrets to each
+ * betting decision the trained seat made
+ *
+ * Iterations run in epochs across every thread. During an epoch every worker reads the strategy from
+ * the shared table, which nobody changes, and writes its regrets into its own table. Between epochs the
+ * worker tables are added into the shared one in order, so the same seed and thread count always train
+ * the same table
+ */
+public class CfrTrainer {
+    // Rounds are played with 2 to this many seats, the most a new game can have
+    private static final int MAX_SEATS = 8;
+
+    // Starting credits for a seat are up to this many antes, about what a long game reaches
+    private static final int MAX_ANTES = 60;
+
+    // How often the trained seat picks an action at random instead of from its strategy
+    private static final float EXPLORE = 0.6f;
+
+    // Iterations each worker plays before the tables are added together
+    private static final int EPOCH = 2000;
+
+    final private int threads;
+    final private long seed;
+    final private int ante;
+    final private float shiftChance;
+    final private InfosetTable table;
+    final private Worker[] workers;
+    final private ExecutorService pool;
+    private long iterations;
+    private long epochs;
+
+    /**
+     * @param table the table to train, empty or loaded from a checkpoint
+     * @param iterations how many iterations the table has already been trained for
+     */
+    public CfrTrainer(int threads, long seed, int ante, float shiftChance, InfosetTable table, long iterations) {
+        this.threads = threads;
+        this.seed = seed;
+        this.ante = ante;
+        this.shiftChance = shiftChance;
+        this.table = table;
+        this.iterations = iterations;
+        // Carry on the same random streams after a checkpoint
+        epochs = iterations / ((long) EPOCH * threads);
+
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker();
+        pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "cfr-trainer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public long iterations() { return iterations; }
+    public InfosetTable table() { return table; }
+
+    /**
+     * Train for at least this many more iterations, in whole epochs
+     */
+    public void train(long more) {
+        long target = iterations + more;
+        List<Future<?>> running = new ArrayList<Future<?>>(threads);
+        while (iterations < target) {
+            running.clear();
+            for (int i = 0; i < threads; i++) {
+                workers[i].rng = new SplittableRng(SplittableRng.streamSeed(seed, epochs * threads + i));
+                running.add(pool.submit(workers[i]));
+            }
+            try {
+                for (Future<?> f : running)
+                    f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+
+            for (Worker w : workers) {
+                table.add(w.delta);
+                w.delta.clear();
+            }
+            table.floorRegrets();
+            iterations += (long) EPOCH * threads;
+            epochs++;
+        }
+    }
+
+    /**
+     * Stop the worker threads, call this once training is over
+     */
+    public void dispose() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Plays iterations on one thread, into its own table
+     */
+    private class Worker implements Callable<Void> {
+        final private InfosetTable delta = new InfosetTable();
+        final private RoundModel[] models = new RoundModel[MAX_SEATS + 1];
+        final private float[] sigma = new float[RoundModel.ACTIONS];
+        Rng rng;
+
+        // Every betting decision of the trained seat in the current iteration
+        private int[] pathKeys = new int[16];
+        private int[] pathLegal = new int[16];
+        private int[] pathActions = new int[16];
+        private float[] pathSigma = new float[16 * RoundModel.ACTIONS];
+        private float[] pathReach = new float[16];    // How likely the strategy was to get here, over how likely sampling was
+        private int depth;
+
+        @Override
+        public Void call() {
+            for (int i = 0; i < EPOCH; i++)
+                iterate();
+            return null;
+        }
+
+        private void iterate() {
+            int seats = 2 + rng.nextInt(MAX_SEATS - 1);
+            if (models[seats] == null)
+                models[seats] = new RoundModel(seats, 0, ante, shiftChance);
+            RoundModel model = models[seats];
+            for (int s = 0; s < seats; s++)
+                model.setCredits(s, ante * (1 + rng.nextInt(MAX_ANTES)));
+            int trained = rng.nextInt(seats);
+            model.reset(rng);
+
+            depth = 0;
+            float reach = 1;        // Product of the strategy's chances of the trained seat's actions so far
+            float sampled = 1;      // Product of the chances those actions were sampled with
+            while (model.phase() != RoundModel.OVER) {
+                if (model.phase() != RoundModel.BET) {
+                    model.apply(model.defaultAction());
+                    continue;
+                }
+                int key = model.infoSet();
+                int legal = model.legal();
+                table.currentStrategy(key, legal, sigma);
+                if (model.toAct() != trained) {
+                    model.apply(sample(legal, 0));
+                    continue;
+                }
+
+                int a = sample(legal, EXPLORE);
+                float q = EXPLORE / Integer.bitCount(legal) + (1 - EXPLORE) * sigma[a];
+                push(key, legal, a, reach / sampled);
+                reach *= sigma[a];
+                sampled *= q;
+                model.apply(a);
+            }
+            if (depth == 0)
+                return;
+
+            // Outcome sampling regrets, the opponents and chance were sampled on policy so only the trained
+            // seat's sampling needs correcting for
+            float w = model.reward(trained) / sampled;
+            float tail = 1;         // The strategy's chance of the rest of the path after each decision
+            for (int d = depth - 1; d >= 0; d--) {
+                // Adding a key can grow the table, so get its arrays after
+                int o = delta.findOrAdd(pathKeys[d]);
+                float[] regret = delta.regret();
+                float[] sum = delta.strategySum();
+                int a = pathActions[d];
+                float p = pathSigma[d * RoundModel.ACTIONS + a];
+                for (int b = 0; b < RoundModel.ACTIONS; b++) {
+                    if ((pathLegal[d] & (1 << b)) == 0)
+                        continue;
+                    float pb = pathSigma[d * RoundModel.ACTIONS + b];
+                    regret[o + b] += b == a ? w * tail * (1 - p) : -w * tail * p;
+                    sum[o + b] += pathReach[d] * pb;
+                }
+                tail *= p;
+            }
+        }
+
+        /**
+         * Pick an action from the current strategy in sigma, or at random this part of the time
+         */
+        private int sample(int legal, float explore) {
+            float r = rng.nextFloat();
+            int n = Integer.bitCount(legal);
+            int last = RoundModel.MATCH;
+            for (int a = 0; a < RoundModel.ACTIONS; a++) {
+                if ((legal & (1 << a)) == 0)
+                    continue;
+                last = a;
+                r -= explore / n + (1 - explore) * sigma[a];
+                if (r < 0)
+                    return a;
+            }
+            return last;
+        }
+
+        private void push(int key, int legal, int action, float reach) {
+            if (depth == pathKeys.length) {
+                int n = depth * 2;
+                pathKeys = grow(pathKeys, n);
+                pathLegal = grow(pathLegal, n);
+                pathActions = grow(pathActions, n);
+                float[] r = new float[n];
+                System.arraycopy(pathReach, 0, r, 0, depth);
+                pathReach = r;
+                float[] s = new float[n * RoundModel.ACTIONS];
+                System.arraycopy(pathSigma, 0, s, 0, pathSigma.length);
+                pathSigma = s;
+            }
+            pathKeys[depth] = key;
+            pathLegal[depth] = legal;
+            pathActions[depth] = action;
+            pathReach[depth] = reach;
+            System.arraycopy(sigma, 0, pathSigma, depth * RoundModel.ACTIONS, RoundModel.ACTIONS);
+            depth++;
+        }
+
+        private int[] grow(int[] a, int n) {
+            int[] b = new int[n];
+            System.arraycopy(a, 0, b, 0, a.length);
+            return b;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sabacc.ai;
+
+/**
+ * The exact chances of how a hand ends up after drawing some more cards, worked out by DrawRisk
+ */
+public class DrawOdds {
+    // The chance to bomb out (0 or over 23), to end on 18-23, and to end on exactly 23
+    public float bombOut;
+    public float improve;
+    public float pureSabacc;
+}
@@ -0,0 +1,149 @@
+package com.sabacc.ai;
+
+import com.sabacc.Composition;
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+
+import java.util.Arrays;
+
+/**
+ * Works out exactly how a hand ends up after drawing a few more cards from a set of unseen cards
+ *
+ * Only the values of the cards drawn matter, so the unseen cards are a Composition and the chance of
+ * every total the draws could add up to is found by going through each value once, choosing how many
+ * copies of it are drawn (a multivariate hypergeometric). The totals for every number of draws are
+ * kept for the last few compositions, so asking again about the same unseen cards, with any hand
+ * value or number of draws, only sums up the stored totals
+ *
+ * The Idiot's Array is not counted, only the hand value. Not thread safe, each player should have their own
+ */
+public class DrawRisk {
+    // The most draws a question can ask about, a hand is never bigger than 5 cards
+    public static final int MAX_DRAWS = 3;
+
+    // Totals of k draws run from MIN_VALUE * k to MAX_VALUE * k, offset so they can index an array
+    private static final int OFFSET = -Composition.MIN_VALUE * MAX_DRAWS;
+    private static final int TOTALS = (Composition.MAX_VALUE - Composition.MIN_VALUE) * MAX_DRAWS + 1;
+
+    // How many compositions to remember, they only change when a hand or field does
+    private static final int CACHE_SIZE = 8;
+
+    // A small direct mapped cache from a composition to the chance of every total of every number of draws
+    final private long[] keys;
+    final private double[][][] totals;
+
+    public DrawRisk() {
+        keys = new long[CACHE_SIZE];
+        totals = new double[CACHE_SIZE][][];
+    }
+
+    /**
+     * The cards a player cannot see, everything but their own hand and every Interference Field.
+     * This is the deck plus the hidden hands of the opponents
+     *
+     * A Sabacc Shift puts fielded cards back in the deck, so a hand can hold the same card as a field. The
+     * seen cards are put together as a set of ids first so such a card is only taken away once, as taking
+     * away the same card twice would borrow from the count of the value next to it
+     */
+    public static long unseen(GameState state, Player me) {
+        long low = me.hand().low();
+        long high = me.hand().high();
+        for (Player p : state.players) {
+            low |= p.field().low();
+            high |= p.field().high();
+        }
+        return Composition.FULL - Composition.of(low, high);
+    }
+
+    /**
+     * The chance of how a hand ends up after drawing more cards
+     * @param unseen the cards that could be drawn
+     * @param value the current value of the hand, including the Interference Field
+     * @param draws how many cards will be drawn, 1 to MAX_DRAWS
+     */
+    public DrawOdds odds(long unseen, int value, int draws) {
+        if (draws < 1 || draws > MAX_DRAWS)
+            throw new IllegalArgumentException("Can only work out the odds of 1 to " + MAX_DRAWS + " draws");
+
+        double[] chance = totals(unseen)[draws];
+        double bombOut = 0, improve = 0, pure = 0;
+        for (int s = 0; s < TOTALS; s++) {
+            if (chance[s] == 0)
+                continue;
+            int v = Math.abs(value + s - OFFSET);
+            if (v == 0 || v > 23)
+                bombOut += chance[s];
+            else if (v >= 18) {
+                improve += chance[s];
+                if (v == 23)
+                    pure += chance[s];
+            }
+        }
+
+        DrawOdds odds = new DrawOdds();
+        odds.bombOut = (float) bombOut;
+        odds.improve = (float) improve;
+        odds.pureSabacc = (float) pure;
+        return odds;
+    }
+
+    /**
+     * Look up the chance of every total for a composition, working it out if it is not cached
+     */
+    private double[][] totals(long unseen) {
+        // Mix the bits so compositions that differ by only a card or two land in different slots
+        long h = unseen * 0x9e3779b97f4a7c15L;
+        int slot = (int)(h >>> 61) & (CACHE_SIZE - 1);
+        if (totals[slot] == null || keys[slot] != unseen) {
+            totals[slot] = compute(unseen, totals[slot]);
+            keys[slot] = unseen;
+        }
+        return totals[slot];
+    }
+
+    /**
+     * Count the ways to draw every total with every number of draws, one value at a time, then divide
+     * by the ways to draw that many cards at all
+     * @param into arrays to reuse, or null
+     */
+    private static double[][] compute(long unseen, double[][] into) {
+        double[][] ways = into != null ? into : new double[MAX_DRAWS + 1][TOTALS];
+        for (double[] w : ways)
+            Arrays.fill(w, 0);
+        ways[0][OFFSET] = 1;
+
+        int n = 0;
+        for (int v = Composition.MIN_VALUE; v <= Composition.MAX_VALUE; v++) {
+            int copies = Composition.count(unseen, v);
+            if (copies == 0)
+                continue;
+            n += copies;
+            // Going from the most draws down means every total read has not had this value added yet
+            for (int k = MAX_DRAWS - 1; k >= 0; k--) {
+                double[] from = ways[k];
+                for (int s = 0; s < TOTALS; s++) {
+                    if (from[s] == 0)
+                        continue;
+                    for (int t = 1; t <= copies && k + t <= MAX_DRAWS; t++)
+                        ways[k + t][s + t * v] += from[s] * choose(copies, t);
+                }
+            }
+        }
+
+        for (int k = 1; k <= MAX_DRAWS; k++) {
+            double all = choose(n, k);
+            for (int s = 0; s < TOTALS; s++)
+                ways[k][s] = all > 0 ? ways[k][s] / all : 0;
+        }
+        return ways;
+    }
+
+    private static double choose(int n, int k) {
+        if (k < 0 || k > n)
+            return 0;
+        double c = 1;
+        for (int i = 0; i < k; i++)
+            c = c * (n - i) / (i + 1);
+        return c;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sabacc.ai;
+
+/**
+ * How a hand is expected to do at the showdown, as estimated by the EquityEstimator
+ */
+public class Equity {
+    // The chance to win outright, to tie for the best hand (and go to Sudden Demise), or to bomb out
+    public float win;
+    public float tie;
+    public float bombOut;
+
+    // How many rollouts the estimate is based on
+    public int samples;
+
+    /**
+     * The share of the pot this hand is expected to win, counting a tie as half a win
+     */
+    public float share() { return win + tie / 2; }
+}
@@ -0,0 +1,351 @@
+package com.sabacc.ai;
+
+import com.sabacc.Deck;
+import com.sabacc.Hand;
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.Rng;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Estimates the chance that a players hand wins or bombs out by playing the rest of the round out
+ * many times (Monte Carlo rollouts)
+ *
+ * Each rollout deals the opponents hidden hands from the cards this player cannot see, the real
+ * remaining deck plus the opponents hidden cards. Interference Field cards are known, so they are
+ * never dealt. Then it plays out the remaining drawing rounds, with a chance of a Sabacc Shift each
+ * round, and compares hands as in the showdown
+ *
+ * Rollouts are split across a pool of worker threads and stop once either the time budget or the
+ * sample limit is reached, so the estimate can be kept inside Sabacc.aiTurnLength
+ */
+public class EquityEstimator {
+    // The value of every card id
+    private static final int[] VALUES = new int[Deck.SIZE];
+    static {
+        for (int id = 0; id < Deck.SIZE; id++)
+            VALUES[id] = Deck.card(id).value;
+    }
+
+    // Opponents draw until they reach this hand value, the same as Player.drawChoice
+    private static final int DRAW_BELOW = 18;
+
+    final private int threads;
+    final private long budgetNanos;
+    final private int maxSamples;
+    final private ExecutorService workers;
+
+    /**
+     * @param threads how many threads run rollouts, including the thread asking for the estimate
+     * @param budgetSeconds how long an estimate may take, 0 for no time limit
+     * @param maxSamples the most rollouts an estimate will use, 0 for no limit
+     */
+    public EquityEstimator(int threads, float budgetSeconds, int maxSamples) {
+        if (threads < 1)
+            throw new IllegalArgumentException("An estimator needs at least 1 thread");
+        if (budgetSeconds <= 0 && maxSamples <= 0)
+            throw new IllegalArgumentException("An estimator needs a time budget or a sample limit");
+        this.threads = threads;
+        this.budgetNanos = (long)(budgetSeconds * 1e9);
+        this.maxSamples = maxSamples;
+
+        // The calling thread runs its own share of rollouts, so only the other threads need a pool
+        if (threads > 1) {
+            workers = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "equity-worker");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        } else
+            workers = null;
+    }
+
+    /**
+     * Estimate how the hand of a player is expected to do at the end of this round
+     * @param state the current game
+     * @param me the player to estimate for, only cards this player can see are used
+     * @param rng the random stream to split each workers stream from
+     */
+    public Equity estimate(GameState state, Player me, Rng rng) {
+        Table table = new Table(state, me);
+        long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+        int samplesEach = maxSamples > 0 ? Math.max(1, maxSamples / threads) : Integer.MAX_VALUE;
+
+        ArrayList<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+        for (int i = 1; i < threads; i++)
+            futures.add(workers.submit(new Rollouts(table, rng.split(), deadline, samplesEach)));
+        int[] totals = new Rollouts(table, rng.split(), deadline, samplesEach).call();
+
+        for (Future<int[]> f : futures) {
+            try {
+                int[] counts = f.get();
+                for (int i = 0; i < totals.length; i++)
+                    totals[i] += counts[i];
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        Equity equity = new Equity();
+        equity.samples = totals[Rollouts.SAMPLES];
+        if (equity.samples > 0) {
+            equity.win = (float) totals[Rollouts.WINS] / equity.samples;
+            equity.tie = (float) totals[Rollouts.TIES] / equity.samples;
+            equity.bombOut = (float) totals[Rollouts.BOMBS] / equity.samples;
+        }
+        return equity;
+    }
+
+    /**
+     * Stop the worker threads, call this when the estimator is no longer needed
+     */
+    public void dispose() {
+        if (workers != null)
+            workers.shutdownNow();
+    }
+
+    /**
+     * Everything a rollout needs to know about the table, as seen by one player. Copied out of the
+     * game state on the calling thread so that workers never touch the live game
+     */
+    private static class Table {
+        // Every card id this player cannot see, the remaining deck and the opponents hidden cards
+        final int[] unseen;
+
+        // Seat 0 is always the player being estimated for
+        final int seats;
+        final int[] hidden;         // How many hidden cards each seat holds, the cards of seat 0 are known
+        final int[] fieldValue;     // The value of each seats Interference Field
+        final int[] myHand;         // The ids of the cards in this players hand
+
+        final boolean dealStart;    // If the starting hands still need to be dealt
+        final int drawRounds;       // How many more drawing rounds to play out
+        final float shiftPerRound;  // The chance of a Sabacc Shift during one round of drawing and betting
+        final float shiftFinal;     // The chance of a Sabacc Shift during the final betting round
+
+        Table(GameState state, Player me) {
+            ArrayList<Player> active = new ArrayList<Player>();
+            active.add(me);
+            int unseenCount = state.deck.size();
+            for (Player p : state.players) {
+                if (p == me || p.folded)
+                    continue;
+                active.add(p);
+                unseenCount += p.numCards();
+            }
+
+            seats = active.size();
+            hidden = new int[seats];
+            fieldValue = new int[seats];
+            unseen = new int[unseenCount];
+            int n = 0;
+            for (int i = 0; i < state.deck.size(); i++)
+                unseen[n++] = state.deck.remainingId(i);
+            for (int s = 0; s < seats; s++) {
+                Player p = active.get(s);
+                fieldValue[s] = p.fieldValue();
+                if (s == 0)
+                    continue;
+                hidden[s] = p.numCards();
+                Hand h = p.hand();
+                for (int i = 0; i < h.size(); i++)
+                    unseen[n++] = h.id(i);
+            }
+            myHand = new int[me.numCards()];
+            for (int i = 0; i < myHand.length; i++)
+                myHand[i] = me.hand().id(i);
+            hidden[0] = myHand.length;
+
+            dealStart = state.startOfRound;
+            if (state.isCalled)
+                drawRounds = 0;
+            else
+                drawRounds = Math.max(1, Math.min(4, state.untilCall + 1));
+
+            // A shift can happen after every action, roughly one drawing and one betting action per player each round
+            shiftPerRound = 1 - (float) Math.pow(1 - state.shiftChance, 2 * seats);
+            shiftFinal = 1 - (float) Math.pow(1 - state.shiftChance, seats);
+        }
+    }
+
+    /**
+     * Runs rollouts on one thread with its own random stream and scratch space
+     */
+    private static class Rollouts implements Callable<int[]> {
+        static final int WINS = 0;
+        static final int TIES = 1;
+        static final int BOMBS = 2;
+        static final int SAMPLES = 3;
+
+        // Bits marking which values needed for an Idiot's Array are in a hand
+        private static final int HAS_IDIOT = 1;
+        private static final int HAS_TWO = 2;
+        private static final int HAS_THREE = 4;
+
+        final private Table table;
+        final private Rng rng;
+        final private long deadline;
+        final private int samples;
+
+        // Scratch space, reused for every rollout
+        final private int[] deck;
+        private int deckSize;
+        final private int[] count;
+        final private int[] value;
+        final private int[] idiot;
+
+        Rollouts(Table table, Rng rng, long deadline, int samples) {
+            this.table = table;
+            this.rng = rng;
+            this.deadline = deadline;
+            this.samples = samples;
+            deck = new int[Math.max(Deck.SIZE, table.unseen.length)];
+            count = new int[table.seats];
+            value = new int[table.seats];
+            idiot = new int[table.seats];
+        }
+
+        @Override
+        public int[] call() {
+            int[] totals = new int[4];
+            for (int i = 0; i < samples; i++) {
+                // Checking the clock is cheap compared to a rollout, but no need to do it every time
+                if ((i & 15) == 0 && System.nanoTime() > deadline)
+                    break;
+                int result = rollout();
+                if (result >= 0)
+                    totals[result]++;
+                totals[SAMPLES]++;
+            }
+            return totals;
+        }
+
+        /**
+         * Play out the rest of the round once
+         * @return WINS, TIES or BOMBS for the player being estimated for, or -1 for a loss
+         */
+        private int rollout() {
+            System.arraycopy(table.unseen, 0, deck, 0, table.unseen.length);
+            deckSize = table.unseen.length;
+
+            // This player knows their own hand, everybody else is dealt their hidden cards from the unseen cards
+            count[0] = 0;
+            value[0] = table.fieldValue[0];
+            idiot[0] = 0;
+            for (int id : table.myHand)
+                add(0, id);
+            for (int s = 1; s < table.seats; s++) {
+                count[s] = 0;
+                value[s] = table.fieldValue[s];
+                idiot[s] = 0;
+                for (int i = 0; i < table.hidden[s]; i++)
+                    draw(s);
+            }
+            if (table.dealStart)
+                for (int s = 0; s < table.seats; s++) {
+                    draw(s);
+                    draw(s);
+                }
+
+            for (int r = 0; r < table.drawRounds; r++) {
+                if (rng.nextFloat() < table.shiftPerRound)
+                    shift();
+                for (int s = 0; s < table.seats; s++)
+                    if (Math.abs(value[s]) < DRAW_BELOW)
+                        draw(s);
+            }
+            if (rng.nextFloat() < table.shiftFinal)
+                shift();
+
+            return showdown();
+        }
+
+        /**
+         * Compare hands the same way as the showdown, an Idiot's Array beats a pure Sabacc
+         */
+        private int showdown() {
+            int mine = rank(0);
+            if (mine < 0)
+                return BOMBS;
+            int best = -1;
+            for (int s = 1; s < table.seats; s++)
+                best = Math.max(best, rank(s));
+            if (mine > best)
+                return WINS;
+            if (mine == best)
+                return TIES;
+            return -1;
+        }
+
+        /**
+         * @return the hand value of a seat, 24 for an Idiot's Array, or -1 if they bombed out
+         */
+        private int rank(int s) {
+            if (count[s] == 3 && idiot[s] == (HAS_IDIOT | HAS_TWO | HAS_THREE))
+                return 24;
+            int v = Math.abs(value[s]);
+            if (v > 23 || v == 0)
+                return -1;
+            return v;
+        }
+
+        /**
+         * The whole deck is refreshed and every hand is replaced with new cards, fields are not affected
+         */
+        private void shift() {
+            for (int i = 0; i < Deck.SIZE; i++)
+                deck[i] = i;
+            deckSize = Deck.SIZE;
+            for (int s = 0; s < table.seats; s++) {
+                int n = count[s];
+                value[s] -= handValue(s);
+                count[s] = 0;
+                idiot[s] = 0;
+                for (int i = 0; i < n; i++)
+                    draw(s);
+            }
+        }
+
+        /**
+         * The value of the hand of a seat without their field, fields are never part of the rollout state
+         */
+        private int handValue(int s) {
+            return value[s] - table.fieldValue[s];
+        }
+
+        private void draw(int s) {
+            if (deckSize == 0)
+                return;
+            int i = rng.nextInt(deckSize);
+            int id = deck[i];
+            deckSize--;
+            deck[i] = deck[deckSize];
+            add(s, id);
+        }
+
+        private void add(int s, int id) {
+            int v = VALUES[id];
+            count[s]++;
+            value[s] += v;
+            if (v == 0)
+                idiot[s] |= HAS_IDIOT;
+            else if (v == 2)
+                idiot[s] |= HAS_TWO;
+            else if (v == 3)
+                idiot[s] |= HAS_THREE;
+        }
+    }
+}
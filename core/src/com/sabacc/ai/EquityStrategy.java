@@ -0,0 +1,89 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.Rng;
+
+/**
+ * Bets from the chance of winning the hand as estimated by an EquityEstimator, rather than from the
+ * hand value. Folds when the chance to win does not cover the price of calling, raises with a better
+ * than fair share of the pot, and otherwise calls. Draws the same way as the ThresholdStrategy
+ */
+public class EquityStrategy implements Strategy {
+    // How far over a fair share of the pot is worth a raise by minbid, 0.65 heads up and 0.32 at six players
+    private static final float BETTER_THAN_FAIR = 0.15f;
+
+    final private EquityEstimator equity;
+    final private ThresholdStrategy drawing;
+
+    // This player's own random stream, so the rollouts never take numbers from the table's deck
+    final private Rng rng;
+
+    // Raises are a decimal of the current amount of credits, the same as the ThresholdStrategy
+    final private float minbid;
+    final private float maxbid;
+
+    /**
+     * @param equity the estimator to use, it may be shared with other players on the same thread
+     * @param rng the stream split off for this player when they were seated
+     */
+    public EquityStrategy(EquityEstimator equity, Rng rng, float minbid, float maxbid) {
+        this.equity = equity;
+        this.rng = rng;
+        this.minbid = minbid;
+        this.maxbid = maxbid;
+        drawing = new ThresholdStrategy(minbid, maxbid);
+    }
+
+    @Override
+    public int bet(GameState state, Player me) {
+        int bid = state.currentBid;
+        int toCall = bid - me.currentBid;
+        int credits = me.credits();
+
+        // If they have or will have less than 40 credits, always go all in as they will have to drop if they fold
+        if (toCall > 0 && credits - toCall < state.ante * 2)
+            return -2;
+
+        Equity e = equity.estimate(state, me, rng);
+        float share = e.share();
+
+        // If they cannot afford to call, go all in only when they expect to win
+        if (toCall > credits)
+            return share > 0.5f ? -2 : -1;
+
+        // Fold if they are likely to bomb out or the pot odds are not worth it
+        if ((toCall > 0 || state.isCalled) && e.bombOut > 0.5f)
+            return -1;
+        if (toCall > 0 && !state.startOfRound && share < (float) toCall / (state.mainPot + toCall))
+            return -1;
+
+        // A fair share of the pot is an even split between everybody still in the hand
+        int active = 0;
+        for (Player p : state.players)
+            if (!p.folded)
+                active++;
+        float fair = 1f / active;
+
+        // Raise by double minbid with a very likely win, or by minbid with a better than fair share
+        if (share > 0.85f && bid < 2*minbid * credits && me.roundbid < 2*maxbid * credits)
+            return toCall + (int)(credits * 2 * minbid);
+        if (share > fair + BETTER_THAN_FAIR && bid < minbid * credits && me.roundbid < maxbid * credits)
+            return toCall + (int)(credits * minbid);
+
+        // Otherwise, match the bid
+        return toCall;
+    }
+
+    @Override
+    public int draw(GameState state, Player me) {
+        return drawing.draw(state, me);
+    }
+
+    // Every estimate is made from scratch from the game state
+    @Override public void roundStarted(GameState state) {}
+    @Override public void bettingRoundStarted(GameState state) {}
+    @Override public void playerBet(GameState state, Player p, int amount) {}
+    @Override public void playerFolded(GameState state, Player p) {}
+    @Override public void sabaccShift(GameState state) {}
+}
@@ -0,0 +1,250 @@
+package com.sabacc.ai;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The regrets and strategy sums of every CFR information set, in an open addressed hash table of plain
+ * arrays. Keys are ints from CfrPolicy.key, each key owns ACTIONS floats of regret and ACTIONS floats of
+ * strategy sum at the same offset, so nothing is boxed and a lookup is a couple of array reads
+ *
+ * Not thread safe, the trainer gives every worker its own table and adds them together
+ */
+public class InfosetTable {
+    static final int ACTIONS = RoundModel.ACTIONS;
+
+    // Written at the start of every saved table
+    private static final int MAGIC = 0x53434652; // "SCFR"
+    private static final int VERSION = 1;
+
+    // Slots with this key are empty, CfrPolicy.key never makes it
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private float[] regret;
+    private float[] strategySum;
+    private int size;
+    private int mask;
+    private int shift;
+
+    public InfosetTable() {
+        this(1024);
+    }
+
+    /**
+     * @param capacity how many information sets to make room for before growing, rounded up to a power of 2
+     */
+    public InfosetTable(int capacity) {
+        int slots = 16;
+        while (slots < capacity * 2)
+            slots <<= 1;
+        allocate(slots);
+    }
+
+    private void allocate(int slots) {
+        keys = new int[slots];
+        Arrays.fill(keys, EMPTY);
+        regret = new float[slots * ACTIONS];
+        strategySum = new float[slots * ACTIONS];
+        mask = slots - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(slots);
+        size = 0;
+    }
+
+    public int size() { return size; }
+
+    /**
+     * @return the offset of a key's values in the regret and strategy sum arrays, or -1 if it is not in the table
+     */
+    int find(int key) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key)
+                return i * ACTIONS;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the offset of a key's values, adding the key with all zeroes if it is not in the table yet
+     */
+    int findOrAdd(int key) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key)
+                return i * ACTIONS;
+            i = (i + 1) & mask;
+        }
+        // Keep the table at most half full so probes stay short
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return findOrAdd(key);
+        }
+        keys[i] = key;
+        size++;
+        return i * ACTIONS;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing, the top bits of the product are the best mixed
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        float[] oldRegret = regret;
+        float[] oldSum = strategySum;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+            int o = findOrAdd(oldKeys[i]);
+            System.arraycopy(oldRegret, i * ACTIONS, regret, o, ACTIONS);
+            System.arraycopy(oldSum, i * ACTIONS, strategySum, o, ACTIONS);
+        }
+    }
+
+    /**
+     * Every key in the table, in no particular order
+     */
+    int[] keys() {
+        int[] out = new int[size];
+        int n = 0;
+        for (int k : keys)
+            if (k != EMPTY)
+                out[n++] = k;
+        return out;
+    }
+
+    float[] regret() { return regret; }
+    float[] strategySum() { return strategySum; }
+
+    /**
+     * The current strategy by regret matching, written into out. Actions that are not legal get nothing,
+     * and with no positive regret every legal action is equally likely
+     */
+    void currentStrategy(int key, int legal, float[] out) {
+        int o = find(key);
+        float total = 0;
+        for (int a = 0; a < ACTIONS; a++) {
+            float r = o >= 0 && (legal & (1 << a)) != 0 ? Math.max(0, regret[o + a]) : 0;
+            out[a] = r;
+            total += r;
+        }
+        normalize(legal, out, total);
+    }
+
+    /**
+     * The average strategy over all of training, the one that approaches an equilibrium, written into out
+     * @return false if the key was never trained, out is then every legal action equally likely
+     */
+    boolean averageStrategy(int key, int legal, float[] out) {
+        int o = find(key);
+        float total = 0;
+        for (int a = 0; a < ACTIONS; a++) {
+            float s = o >= 0 && (legal & (1 << a)) != 0 ? strategySum[o + a] : 0;
+            out[a] = s;
+            total += s;
+        }
+        normalize(legal, out, total);
+        return total > 0;
+    }
+
+    private static void normalize(int legal, float[] out, float total) {
+        if (total > 0) {
+            for (int a = 0; a < ACTIONS; a++)
+                out[a] /= total;
+            return;
+        }
+        int n = Integer.bitCount(legal);
+        for (int a = 0; a < ACTIONS; a++)
+            out[a] = (legal & (1 << a)) != 0 ? 1f / n : 0;
+    }
+
+    /**
+     * Add every regret and strategy sum of another table into this one
+     */
+    void add(InfosetTable other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] == EMPTY)
+                continue;
+            int o = findOrAdd(other.keys[i]);
+            for (int a = 0; a < ACTIONS; a++) {
+                regret[o + a] += other.regret[i * ACTIONS + a];
+                strategySum[o + a] += other.strategySum[i * ACTIONS + a];
+            }
+        }
+    }
+
+    /**
+     * Regret matching+ never lets a regret go below zero, so an action that was bad early on can recover quickly
+     */
+    void floorRegrets() {
+        for (int i = 0; i < regret.length; i++)
+            if (regret[i] < 0)
+                regret[i] = 0;
+    }
+
+    /**
+     * Empty the table, keeping its arrays
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(regret, 0);
+        Arrays.fill(strategySum, 0);
+        size = 0;
+    }
+
+    /**
+     * Save the table, with how many iterations it was trained for
+     */
+    public void write(DataOutputStream out, long iterations) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ACTIONS);
+        out.writeLong(iterations);
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY)
+                continue;
+            out.writeInt(keys[i]);
+            for (int a = 0; a < ACTIONS; a++)
+                out.writeFloat(regret[i * ACTIONS + a]);
+            for (int a = 0; a < ACTIONS; a++)
+                out.writeFloat(strategySum[i * ACTIONS + a]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Load a table saved by write, replacing everything in this one
+     * @return how many iterations the table was trained for
+     */
+    public long read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a CFR table");
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported CFR table version " + version);
+        if (in.readInt() != ACTIONS)
+            throw new IOException("CFR table has the wrong number of actions");
+        long iterations = in.readLong();
+        int n = in.readInt();
+
+        int slots = 16;
+        while (slots < n * 2)
+            slots <<= 1;
+        allocate(slots);
+        for (int i = 0; i < n; i++) {
+            int o = findOrAdd(in.readInt());
+            for (int a = 0; a < ACTIONS; a++)
+                regret[o + a] = in.readFloat();
+            for (int a = 0; a < ACTIONS; a++)
+                strategySum[o + a] = in.readFloat();
+        }
+        return iterations;
+    }
+}
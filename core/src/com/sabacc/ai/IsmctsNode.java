@@ -0,0 +1,86 @@
+package com.sabacc.ai;
+
+/**
+ * One decision of the searching player, an information set. The same node is reached by every
+ * determinization where this player has made the same choices so far, whatever the hidden cards are
+ *
+ * Not every action can be taken in every determinization, so each action keeps count of how often it
+ * was available and that count is used in place of the parents visits (the availability count of ISMCTS)
+ *
+ * Only the search thread writes to a node. The thread asking for a decision reads the visit counts
+ * after the search, ints and floats can be read safely even if a late search is still running
+ */
+class IsmctsNode {
+    // BET or DRAW, the kind of decision this is
+    final int kind;
+
+    final int[] visits;
+    final int[] available;
+    final float[] total;
+
+    // The next decision of this player after each action, by the kind of that decision
+    final IsmctsNode[][] next;
+
+    IsmctsNode(int kind) {
+        this.kind = kind;
+        visits = new int[RoundModel.ACTIONS];
+        available = new int[RoundModel.ACTIONS];
+        total = new float[RoundModel.ACTIONS];
+        next = new IsmctsNode[RoundModel.ACTIONS][2];
+    }
+
+    /**
+     * Pick the action to try in this playout, any action that has never been tried first, then by UCB1
+     * @param legal a bit for each action that can be taken in this determinization
+     */
+    int select(int legal, float exploration) {
+        for (int a = 0; a < RoundModel.ACTIONS; a++)
+            if ((legal & (1 << a)) != 0)
+                available[a]++;
+
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int a = 0; a < RoundModel.ACTIONS; a++) {
+            if ((legal & (1 << a)) == 0)
+                continue;
+            if (visits[a] == 0)
+                return a;
+            float score = total[a] / visits[a] + exploration * (float) Math.sqrt(Math.log(available[a]) / visits[a]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    void update(int action, float reward) {
+        visits[action]++;
+        total[action] += reward;
+    }
+
+    /**
+     * The most visited of the legal actions, the most robust choice once the search is over
+     */
+    int best(int legal) {
+        int best = -1;
+        for (int a = 0; a < RoundModel.ACTIONS; a++) {
+            if ((legal & (1 << a)) == 0)
+                continue;
+            if (best < 0 || visits[a] > visits[best]
+                    || (visits[a] == visits[best] && visits[a] > 0 && total[a] / visits[a] > total[best] / visits[best]))
+                best = a;
+        }
+        return best;
+    }
+
+    /**
+     * How many visits this node has had in total
+     */
+    int visits() {
+        int n = 0;
+        for (int v : visits)
+            n += v;
+        return n;
+    }
+}
@@ -0,0 +1,240 @@
+package com.sabacc.ai;
+
+import com.sabacc.engine.Rng;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs Information Set Monte Carlo Tree Search for IsmctsStrategy players on a background thread,
+ * under a hard deadline for every move. One search can be shared by every ISMCTS player at a table,
+ * as only one player decides at a time
+ *
+ * Also keeps count of how fast the searches run and how big their trees get
+ */
+public class IsmctsSearch {
+    // How much exploration UCB1 does, playout results are measured against the stake so they are mostly -1 to 1
+    private static final float EXPLORATION = 1f;
+
+    // How long past the deadline to wait for the search thread to notice it, before answering anyway
+    private static final long GRACE_NANOS = 2000000L;
+
+    final private long budgetNanos;
+    final private int maxIterations;
+    final private ExecutorService worker;
+
+    // While above 0, moves stop after this many playouts and the time budget is ignored
+    private int hurried;
+
+    // Totals over every search
+    private long searches;
+    private long playouts;
+    private long nodeVisits;
+    private long searchNanos;
+    private long treeNodes;
+    private int largestTree;
+
+    /**
+     * @param budgetSeconds how long a move may take, 0 for no time limit
+     * @param maxIterations the most playouts a move will use, 0 for no limit
+     */
+    public IsmctsSearch(float budgetSeconds, int maxIterations) {
+        if (budgetSeconds <= 0 && maxIterations <= 0)
+            throw new IllegalArgumentException("A search needs a time budget or an iteration limit");
+        this.budgetNanos = (long)(budgetSeconds * 1e9);
+        this.maxIterations = maxIterations > 0 ? maxIterations : Integer.MAX_VALUE;
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ismcts-search");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Cap moves at a few playouts with no deadline, for when turns are played straight away rather than
+     * watched. Only call this between moves
+     * @param playouts the most playouts a move will use, 0 to go back to the budget and limit from before
+     */
+    public void hurry(int playouts) {
+        hurried = playouts;
+    }
+
+    /**
+     * Search from a decision until the deadline or the iteration limit, adding to the tree below it
+     * @return how many nodes were added to the tree
+     */
+    int run(IsmctsNode root, RoundModel model, Rng rng) {
+        long start = System.nanoTime();
+        long budget = hurried > 0 ? 0 : budgetNanos;
+        long deadline = budget > 0 ? start + budget : Long.MAX_VALUE;
+        Job job = new Job(root, model, rng, deadline, hurried > 0 ? hurried : maxIterations);
+        Future<?> f = worker.submit(job);
+        try {
+            if (budget > 0)
+                f.get(budget + GRACE_NANOS, TimeUnit.NANOSECONDS);
+            else
+                f.get();
+        } catch (TimeoutException e) {
+            // Answer with what has been found so far, the job stops at its next playout
+            job.stop = true;
+        } catch (InterruptedException e) {
+            job.stop = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        searches++;
+        playouts += job.playouts;
+        nodeVisits += job.nodeVisits;
+        searchNanos += System.nanoTime() - start;
+        return job.created;
+    }
+
+    /**
+     * Record the size of the tree a search ended with
+     */
+    void recordTreeSize(int nodes) {
+        treeNodes += nodes;
+        largestTree = Math.max(largestTree, nodes);
+    }
+
+    public long searches() { return searches; }
+    public long playouts() { return playouts; }
+    public long nodeVisits() { return nodeVisits; }
+    public long searchNanos() { return searchNanos; }
+    public long treeNodes() { return treeNodes; }
+    public int largestTree() { return largestTree; }
+
+    /**
+     * Tree nodes visited per second of searching
+     */
+    public double nodesPerSecond() {
+        return searchNanos > 0 ? nodeVisits * 1e9 / searchNanos : 0;
+    }
+
+    /**
+     * The average size of the tree at the end of a search, including what was kept from earlier decisions
+     */
+    public double averageTreeSize() {
+        return searches > 0 ? (double) treeNodes / searches : 0;
+    }
+
+    /**
+     * Stop the search thread, call this when no player needs the search any more
+     */
+    public void dispose() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Runs playouts on the search thread
+     */
+    private static class Job implements Runnable {
+        final private IsmctsNode root;
+        final private RoundModel model;
+        final private Rng rng;
+        final private long deadline;
+        final private int maxIterations;
+        volatile boolean stop;
+
+        // The decisions of the searching player in the current playout
+        private IsmctsNode[] pathNodes;
+        private int[] pathActions;
+        private int depth;
+
+        // What the search got done, read once the job has finished or the deadline has passed
+        volatile int playouts;
+        volatile int nodeVisits;
+        volatile int created;
+
+        Job(IsmctsNode root, RoundModel model, Rng rng, long deadline, int maxIterations) {
+            this.root = root;
+            this.model = model;
+            this.rng = rng;
+            this.deadline = deadline;
+            this.maxIterations = maxIterations;
+            pathNodes = new IsmctsNode[16];
+            pathActions = new int[16];
+        }
+
+        @Override
+        public void run() {
+            int n = 0;
+            int visits = 0;
+            while (!stop && n < maxIterations && System.nanoTime() < deadline) {
+                visits += playout();
+                n++;
+                playouts = n;
+                nodeVisits = visits;
+            }
+        }
+
+        /**
+         * Play one determinization to the end of the round, following the tree for this players own
+         * decisions and adding at most one new node, then the default AI for everything else
+         * @return how many tree nodes were visited
+         */
+        private int playout() {
+            model.reset(rng);
+            depth = 0;
+            IsmctsNode node = root;
+            IsmctsNode last = null;
+            int lastAction = -1;
+            boolean expanded = false;
+
+            while (model.phase() != RoundModel.OVER) {
+                if (model.toAct() == model.me) {
+                    if (last != null) {
+                        int kind = model.phase();
+                        node = last.next[lastAction][kind];
+                        if (node == null && !expanded) {
+                            node = new IsmctsNode(kind);
+                            last.next[lastAction][kind] = node;
+                            created++;
+                            expanded = true;
+                        }
+                        last = null;
+                    }
+                    if (node != null) {
+                        int a = node.select(model.legal(), EXPLORATION);
+                        push(node, a);
+                        last = node;
+                        lastAction = a;
+                        node = null;
+                        model.apply(a);
+                        continue;
+                    }
+                }
+                model.apply(model.defaultAction());
+            }
+
+            float reward = model.reward();
+            for (int i = 0; i < depth; i++)
+                pathNodes[i].update(pathActions[i], reward);
+            return depth;
+        }
+
+        private void push(IsmctsNode node, int action) {
+            if (depth == pathNodes.length) {
+                IsmctsNode[] nodes = new IsmctsNode[depth * 2];
+                int[] actions = new int[depth * 2];
+                System.arraycopy(pathNodes, 0, nodes, 0, depth);
+                System.arraycopy(pathActions, 0, actions, 0, depth);
+                pathNodes = nodes;
+                pathActions = actions;
+            }
+            pathNodes[depth] = node;
+            pathActions[depth] = action;
+            depth++;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.Rng;
+
+/**
+ * Plans every bet and draw with Information Set Monte Carlo Tree Search. Each move plays the rest of
+ * the round out thousands of times in a RoundModel, each time with the opponents hidden hands dealt
+ * at random from the cards this player cannot see, and picks the action that did best
+ *
+ * The tree is kept for the whole round, so the next decision starts from the part of the tree below
+ * the action that was just taken instead of from nothing
+ */
+public class IsmctsStrategy implements Strategy {
+    final private IsmctsSearch search;
+
+    // This player's own random stream, each search splits its stream off this rather than the table's
+    final private Rng rng;
+
+    // The last decision made this round and the action taken, the next search starts from the node below it
+    private IsmctsNode last;
+    private int lastAction;
+
+    // How many nodes have been added to this rounds tree
+    private int treeSize;
+
+    // How many times this player has raised in the current betting round
+    private int raises;
+
+    /**
+     * @param search the search to run on, it may be shared with every other ISMCTS player at the table
+     * @param rng the stream split off for this player when they were seated
+     */
+    public IsmctsStrategy(IsmctsSearch search, Rng rng) {
+        this.search = search;
+        this.rng = rng;
+    }
+
+    @Override
+    public int bet(GameState state, Player me) {
+        RoundModel model = new RoundModel(state, me, raises);
+        int action = decide(state, model, RoundModel.BET);
+        int toCall = state.currentBid - me.currentBid;
+
+        if (action == RoundModel.FOLD)
+            return -1;
+        if (action == RoundModel.ALL_IN) {
+            raises++;
+            return -2;
+        }
+        if (action == RoundModel.RAISE) {
+            raises++;
+            int amount = toCall + model.raiseSize(me.credits());
+            return amount >= me.credits() ? -2 : amount;
+        }
+        return toCall > me.credits() ? -2 : toCall;
+    }
+
+    @Override
+    public int draw(GameState state, Player me) {
+        int action = decide(state, new RoundModel(state, me, raises), RoundModel.DRAW);
+        if (action == RoundModel.CALL)
+            return -1;
+        return action == RoundModel.TAKE ? 1 : 0;
+    }
+
+    /**
+     * Search from this decision, reusing the tree below the last one if the search got this far before
+     */
+    private int decide(GameState state, RoundModel model, int kind) {
+        IsmctsNode root = last != null ? last.next[lastAction][kind] : null;
+        if (root == null) {
+            root = new IsmctsNode(kind);
+            treeSize++;
+        }
+
+        // Work out which actions can be taken here on this thread, before the model goes to the search thread
+        Rng stream = rng.split();
+        model.reset(stream);
+        int legal = model.legal();
+
+        treeSize += search.run(root, model, stream);
+        search.recordTreeSize(treeSize);
+
+        last = root;
+        lastAction = root.best(legal);
+        return lastAction;
+    }
+
+    @Override
+    public void roundStarted(GameState state) {
+        // A new round has nothing to do with the last one, let the old tree go
+        last = null;
+        treeSize = 0;
+    }
+
+    @Override
+    public void bettingRoundStarted(GameState state) {
+        raises = 0;
+    }
+
+    // Everything the search needs is read from the game state when a decision is made
+    @Override public void playerBet(GameState state, Player p, int amount) {}
+    @Override public void playerFolded(GameState state, Player p) {}
+    @Override public void sabaccShift(GameState state) {}
+}
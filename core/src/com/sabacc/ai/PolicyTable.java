@@ -0,0 +1,161 @@
+package com.sabacc.ai;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A compact, read only table of precomputed decisions, the chance of each action in every information
+ * set. The file is used as it is: a short header, every key in ascending order, then a byte per action
+ * per key. Loading only checks the header, so tables of any size load at once, and a lookup is a binary
+ * search straight on the buffer with no allocation
+ *
+ * On desktop the file is memory mapped, on Android where assets can not be mapped it is read into a
+ * direct buffer. Absolute reads never move the buffer, so one table can be shared by every thread
+ */
+public class PolicyTable {
+    static final int ACTIONS = RoundModel.ACTIONS;
+
+    private static final int MAGIC = 0x53504f4c; // "SPOL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 24;
+
+    // Chances are stored as a byte out of this
+    private static final int SCALE = 255;
+
+    final private ByteBuffer buffer;
+    final private int size;
+    final private long iterations;
+    final private int chances;          // Where the chances start, after the keys
+
+    /**
+     * Use a buffer holding a whole table, from position 0
+     */
+    public PolicyTable(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a policy table");
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+            throw new IOException("Unsupported policy table version " + version);
+        if (buffer.getInt(8) != ACTIONS)
+            throw new IOException("Policy table has the wrong number of actions");
+        size = buffer.getInt(12);
+        iterations = buffer.getLong(16);
+        chances = HEADER + size * 4;
+        if (buffer.capacity() < chances + size * ACTIONS)
+            throw new IOException("Policy table is cut short");
+        this.buffer = buffer;
+    }
+
+    /**
+     * Load a table from the game's files, memory mapped if the platform allows it
+     * @return the table, or null if the file does not exist or can not be read
+     */
+    public static PolicyTable load(FileHandle file) {
+        if (!file.exists())
+            return null;
+        try {
+            ByteBuffer buffer = null;
+            if (Gdx.app.getType() != Application.ApplicationType.Android) {
+                try {
+                    buffer = file.map();
+                } catch (GdxRuntimeException e) {
+                    // Files inside a jar can not be mapped, read them like Android does
+                }
+            }
+            if (buffer == null) {
+                byte[] bytes = file.readBytes();
+                buffer = ByteBuffer.allocateDirect(bytes.length);
+                buffer.put(bytes);
+            }
+            return new PolicyTable(buffer);
+        } catch (IOException e) {
+            Gdx.app.error("PolicyTable", "Could not load " + file.path(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Memory map a table from outside the game, for the simulation and tools
+     */
+    public static PolicyTable map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // The mapping stays valid once the file is closed
+            return new PolicyTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    public int size() { return size; }
+    public long iterations() { return iterations; }
+
+    /**
+     * The chance of each legal action in an information set, written into out
+     * @return false if the key is not in the table or none of its actions are legal here
+     */
+    boolean chances(int key, int legal, float[] out) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int k = buffer.getInt(HEADER + mid * 4);
+            if (k < key)
+                lo = mid + 1;
+            else if (k > key)
+                hi = mid - 1;
+            else {
+                int o = chances + mid * ACTIONS;
+                float total = 0;
+                for (int a = 0; a < ACTIONS; a++) {
+                    float c = (legal & (1 << a)) != 0 ? buffer.get(o + a) & 0xff : 0;
+                    out[a] = c;
+                    total += c;
+                }
+                // The table was made with every action the model allows, but the game may allow fewer
+                if (total == 0)
+                    return false;
+                for (int a = 0; a < ACTIONS; a++)
+                    out[a] /= total;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the average strategy of a trained table as a policy table
+     */
+    public static void write(InfosetTable table, long iterations, OutputStream stream) throws IOException {
+        int[] keys = table.keys();
+        Arrays.sort(keys);
+        float[] average = new float[ACTIONS];
+
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ACTIONS);
+        out.writeInt(keys.length);
+        out.writeLong(iterations);
+        for (int key : keys)
+            out.writeInt(key);
+        for (int key : keys) {
+            table.averageStrategy(key, (1 << ACTIONS) - 1, average);
+            for (int a = 0; a < ACTIONS; a++)
+                out.writeByte(Math.round(average[a] * SCALE));
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,219 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+
+/**
+ * The pressure and confidence model from AI-brainstorming.txt
+ *
+ * Confidence is how good this players hand looks against the rest of the table, it grows for every
+ * betting round the opponents do not bet, grows as opponents fold, and shrinks as opponents bet large
+ * parts of their credits. Pressure is how badly the player wants to draw, it grows every round and
+ * jumps once the hand can be called, and drops for every card already held. A player draws once their
+ * pressure passes a threshold set by their confidence, and bets and calls from their confidence
+ *
+ * Everything the model knows about the table is updated as each event happens, so a decision only
+ * combines a handful of numbers no matter how long the round has gone on
+ */
+public class PressureStrategy implements Strategy {
+    /**
+     * How quickly a player builds confidence and pressure. An aggressive player bets, draws and calls
+     * more often, while a cautious player is more likely to fold and stand
+     */
+    public enum Type {
+        AGGRESSIVE(1.2f, 1.2f),
+        BALANCED(1f, 1f),
+        CAUTIOUS(0.85f, 0.8f);
+
+        final public float confidence;
+        final public float pressure;
+
+        Type(float confidence, float pressure) {
+            this.confidence = confidence;
+            this.pressure = pressure;
+        }
+    }
+
+    // Confidence needed to stay in against a bet, to raise, and to call the hand
+    private static final float FOLD_BELOW = 0.45f;
+    private static final float RAISE_ABOVE = 0.6f;
+    private static final float CALL_ABOVE = 0.75f;
+
+    // How much of their credits a player raises by for each point of confidence over the threat
+    private static final float RAISE_SIZE = 0.25f;
+
+    // The most cards a player will hold in their hand
+    private static final int MAX_CARDS = 5;
+
+    // A bombed out hand stands if the next card is more likely than this to leave it bombed out
+    private static final float HOPELESS = 0.6f;
+
+    final private Player owner;
+    final private Type type;
+    final private DrawRisk risk;
+
+    // What this player has seen of the current round
+    private int opponentsIn;        // Opponents that have not folded
+    private int bettingRounds;      // Betting rounds started, including the preliminary round
+    private int quietRounds;        // Betting rounds where no opponent put any credits in
+    private boolean opponentBet;    // If an opponent has put credits in during this betting round
+    private float threat;           // The largest part of their credits an opponent has bet, fades each round
+
+    /**
+     * @param owner the player this strategy decides for
+     */
+    public PressureStrategy(Player owner, Type type) {
+        this.owner = owner;
+        this.type = type;
+        risk = new DrawRisk();
+    }
+
+    public Type type() { return type; }
+
+    @Override
+    public void roundStarted(GameState state) {
+        opponentsIn = state.players.size() - 1;
+        bettingRounds = 0;
+        quietRounds = 0;
+        opponentBet = false;
+        threat = 0;
+    }
+
+    @Override
+    public void bettingRoundStarted(GameState state) {
+        if (bettingRounds > 0 && !opponentBet)
+            quietRounds++;
+        bettingRounds++;
+        opponentBet = false;
+        threat *= 0.5f;     // Older bets say less about the hands the opponents hold now
+    }
+
+    @Override
+    public void playerBet(GameState state, Player p, int amount) {
+        if (p == owner || amount <= 0)
+            return;
+        opponentBet = true;
+        // Credits have already been taken out, so this is the part of what they had before the bet
+        threat = Math.max(threat, (float) amount / (p.credits() + amount));
+    }
+
+    @Override
+    public void playerFolded(GameState state, Player p) {
+        if (p != owner && opponentsIn > 0)
+            opponentsIn--;
+    }
+
+    @Override
+    public void sabaccShift(GameState state) {
+        // Every hand was replaced, so what the opponents bet on no longer means anything
+        threat = 0;
+        quietRounds = 0;
+    }
+
+    /**
+     * How good this hand is from 0 to 1, 0 being bombed out, a little over 1 for an Idiot's Array
+     */
+    private float strength() {
+        if (owner.idiotsArray())
+            return 1.1f;
+        int v = Math.abs(owner.score());
+        if (v == 0 || v > 23)
+            return 0;
+        return v / 23f;
+    }
+
+    private float confidence(float strength) {
+        // An 18 is quite good against one player, but unlikely to win anything against 7
+        float crowd = 1f / (1f + 0.04f * Math.max(0, opponentsIn - 1));
+        return strength * type.confidence * (1f + 0.1f * quietRounds) * crowd;
+    }
+
+    private float pressure(GameState state) {
+        // Drawing rounds played so far, the preliminary betting round comes before any drawing
+        int drawRounds = Math.max(0, bettingRounds - 1);
+        float p = 0.3f + 0.1f * drawRounds;
+        if (state.untilCall <= 0)
+            p += 0.3f;      // An opponent can call the hand on any turn now
+        p *= type.pressure;
+        // Aim for 3 or 4 cards, so a Sabacc Shift cannot blow out the hand too badly
+        return p - 0.1f * (owner.numCards() - 3);
+    }
+
+    @Override
+    public int bet(GameState state, Player me) {
+        int toCall = state.currentBid - me.currentBid;
+        int credits = me.credits();
+
+        // If they have or will have less than 40 credits, always go all in as they will have to drop if they fold
+        if (toCall > 0 && credits - toCall < state.ante * 2)
+            return -2;
+
+        // Nobody has any cards yet in the preliminary betting round, so there is nothing to go on
+        if (state.startOfRound)
+            return Math.min(toCall, credits);
+
+        float strength = strength();
+        float confidence = confidence(strength);
+        // Compare against the confidence an opponent showed by betting, betting everything being 2
+        float theirs = 2 * threat;
+
+        // If they cannot afford to call, go all in only when they are confident
+        if (toCall > credits)
+            return confidence > RAISE_ABOVE + theirs / 2 ? -2 : -1;
+
+        // Fold a bombed out hand whenever it would cost something or the hand is about to end
+        if (strength == 0 && (toCall > 0 || state.isCalled))
+            return -1;
+        if (toCall > 0 && confidence < FOLD_BELOW + theirs / 4)
+            return -1;
+
+        // Raise by more the more confident they are, but never by more than any opponent could match
+        // and not over and over within the same betting round
+        float over = confidence - RAISE_ABOVE - theirs;
+        if (over > 0 && me.roundbid < RAISE_SIZE * credits) {
+            int raise = Math.min((int)(credits * RAISE_SIZE * Math.min(1f, over + 0.5f)), richestOpponent(state) - state.currentBid);
+            if (raise > 0)
+                return toCall + raise;
+        }
+
+        // Otherwise, match the bid
+        return toCall;
+    }
+
+    /**
+     * The most an opponent still in the hand could bid in total this betting round
+     */
+    private int richestOpponent(GameState state) {
+        int richest = 0;
+        for (Player p : state.players)
+            if (p != owner && !p.folded)
+                richest = Math.max(richest, p.credits() + p.currentBid);
+        return richest;
+    }
+
+    @Override
+    public int draw(GameState state, Player me) {
+        float strength = strength();
+        float confidence = confidence(strength);
+        float pressure = pressure(state);
+
+        // Call a good hand once confident enough, pressure wears down how confident they need to be
+        if (state.untilCall <= 0 && strength >= 18 / 23f && confidence > CALL_ABOVE - pressure / 4)
+            return -1;
+
+        // Never go past 5 cards, a bigger hand only gets harder to save
+        if (me.numCards() >= MAX_CARDS)
+            return 0;
+
+        // A bombed out hand is only worth drawing to if the next card has a fair chance to save it
+        if (strength == 0) {
+            DrawOdds odds = risk.odds(DrawRisk.unseen(state, me), me.score(), 1);
+            return odds.bombOut > HOPELESS ? 0 : 1;
+        }
+
+        // The more confident they are in their hand, the more pressure it takes to risk a draw
+        if (pressure > 6f * confidence - 4.3f)
+            return 1;
+        return 0;
+    }
+}
@@ -0,0 +1,577 @@
+package com.sabacc.ai;
+
+import com.sabacc.Deck;
+import com.sabacc.Hand;
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.Rng;
+
+/**
+ * A small, fast copy of the rest of a round as one player sees it, for the ISMCTS search to play out
+ * thousands of times. Every playout starts from a determinization, the opponents hidden hands are dealt
+ * at random from the cards this player cannot see, so the search never uses anything it should not know.
+ * The CFR trainer plays whole rounds in it from the ante on instead, with nothing known about any hand
+ *
+ * The rules follow the RulesEngine closely enough to plan with, betting and drawing rounds in seat order,
+ * a Sabacc Shift chance after every action and the showdown. Raises are a fixed size, a seat can only
+ * raise a couple of times a betting round, ties split the pot instead of going to Sudden Demise, and
+ * going all in simply puts every credit in the main pot
+ *
+ * The snapshot is made on the thread asking for a decision, then the model is only used by the thread
+ * playing it out
+ */
+class RoundModel {
+    // Kinds of decision, and the actions of each
+    static final int BET = 0;
+    static final int DRAW = 1;
+    static final int OVER = 2;
+
+    static final int FOLD = 0;
+    static final int MATCH = 1;
+    static final int RAISE = 2;
+    static final int ALL_IN = 3;
+
+    static final int STAND = 0;
+    static final int TAKE = 1;
+    static final int CALL = 2;
+
+    static final int ACTIONS = 4;
+
+    // How many times a seat can raise in one betting round, and what part of their credits a raise is
+    static final int MAX_RAISES = 2;
+    static final float RAISE_SIZE = 0.2f;
+
+    // A playout this long has gone wrong somewhere, score it as it stands
+    private static final int MAX_STEPS = 1000;
+
+    // Bits marking which values needed for an Idiot's Array are in a hand
+    private static final int HAS_IDIOT = 1;
+    private static final int HAS_TWO = 2;
+    private static final int HAS_THREE = 4;
+
+    // The value of every card id
+    private static final int[] VALUES = new int[Deck.SIZE];
+    // Every card id, the deck after a shift. Deck.refreshDeck() puts back every card, even those in a field
+    private static final int[] SHIFT_DECK = new int[Deck.SIZE];
+    static {
+        for (int id = 0; id < Deck.SIZE; id++) {
+            VALUES[id] = Deck.card(id).value;
+            SHIFT_DECK[id] = id;
+        }
+    }
+
+    /*
+     * The snapshot, never changed after it is made
+     */
+    final int seats;
+    final int me;
+    final private int ante;
+    final private float shiftChance;
+    final private int[] unseen;         // Every card id this player cannot see
+    final private int[] myHand;
+    final private int[] fieldValue;
+    final private int[] rootCount;
+    final private int[] rootCredits;
+    final private int[] rootBid;
+    final private boolean[] rootHasBet;
+    final private boolean[] rootHasDrawn;
+    final private boolean[] rootFolded;
+    final private boolean[] rootAllIn;
+    final private int rootMyRaises;
+    final private int rootPhase;
+    final private int rootCurrentBid;
+    final private int rootMainPot;
+    final private int rootSabaccPot;
+    final private int rootUntilCall;
+    final private boolean rootIsCalled;
+    final private boolean rootStartOfRound;
+    final private float stake;          // What a playout result is measured against
+
+    /*
+     * The current playout
+     */
+    final private int[] deck;
+    private int deckSize;
+    final private int[] count;
+    final private int[] value;          // Hand values, without the field
+    final private int[] idiot;
+    final private int[] credits;
+    final private int[] bid;
+    final private int[] raises;
+    final private boolean[] hasBet;
+    final private boolean[] hasDrawn;
+    final private boolean[] folded;
+    final private boolean[] allIn;
+    private int phase;
+    private int current;
+    private int currentBid;
+    private int mainPot;
+    private int sabaccPot;
+    private int untilCall;
+    private boolean isCalled;
+    private boolean startOfRound;
+    private int steps;
+    private Rng rng;
+
+    /**
+     * Start from the ante of a new round, before anybody has a card, for training. Every seat starts
+     * with nothing bet, set their credits before each reset
+     * @param me the seat reward() is measured for, any seat can be measured with reward(seat)
+     */
+    RoundModel(int seats, int me, int ante, float shiftChance) {
+        this.seats = seats;
+        this.me = me;
+        this.ante = ante;
+        this.shiftChance = shiftChance;
+
+        fieldValue = new int[seats];
+        rootCount = new int[seats];
+        rootCredits = new int[seats];
+        rootBid = new int[seats];
+        rootHasBet = new boolean[seats];
+        rootHasDrawn = new boolean[seats];
+        rootFolded = new boolean[seats];
+        rootAllIn = new boolean[seats];
+
+        unseen = new int[Deck.SIZE];
+        for (int id = 0; id < Deck.SIZE; id++)
+            unseen[id] = id;
+        myHand = new int[0];
+
+        rootMyRaises = 0;
+        rootPhase = BET;
+        rootCurrentBid = 0;
+        rootMainPot = ante * seats;
+        rootSabaccPot = ante * seats;
+        rootUntilCall = 4;
+        rootIsCalled = false;
+        rootStartOfRound = true;
+        stake = ante * seats * 2;
+
+        deck = new int[Deck.SIZE];
+        count = new int[seats];
+        value = new int[seats];
+        idiot = new int[seats];
+        credits = new int[seats];
+        bid = new int[seats];
+        raises = new int[seats];
+        hasBet = new boolean[seats];
+        hasDrawn = new boolean[seats];
+        folded = new boolean[seats];
+        allIn = new boolean[seats];
+    }
+
+    /**
+     * Take a snapshot of the round as seen by the player about to act
+     * @param myRaises how many times this player has raised in the current betting round
+     */
+    RoundModel(GameState state, Player player, int myRaises) {
+        seats = state.players.size();
+        me = state.players.indexOf(player);
+        ante = state.ante;
+        shiftChance = state.shiftChance;
+
+        fieldValue = new int[seats];
+        rootCount = new int[seats];
+        rootCredits = new int[seats];
+        rootBid = new int[seats];
+        rootHasBet = new boolean[seats];
+        rootHasDrawn = new boolean[seats];
+        rootFolded = new boolean[seats];
+        rootAllIn = new boolean[seats];
+
+        int unseenCount = state.deck.size();
+        for (int s = 0; s < seats; s++) {
+            Player p = state.players.get(s);
+            fieldValue[s] = p.fieldValue();
+            rootCount[s] = p.numCards();
+            rootCredits[s] = p.credits();
+            rootBid[s] = p.currentBid;
+            rootHasBet[s] = p.hasBet;
+            rootHasDrawn[s] = p.hasDrawn;
+            rootFolded[s] = p.folded;
+            rootAllIn[s] = p.isAllIn;
+            if (s != me)
+                unseenCount += p.numCards();
+        }
+
+        unseen = new int[unseenCount];
+        int n = 0;
+        for (int i = 0; i < state.deck.size(); i++)
+            unseen[n++] = state.deck.remainingId(i);
+        for (int s = 0; s < seats; s++) {
+            if (s == me)
+                continue;
+            Hand h = state.players.get(s).hand();
+            for (int i = 0; i < h.size(); i++)
+                unseen[n++] = h.id(i);
+        }
+        myHand = new int[player.numCards()];
+        for (int i = 0; i < myHand.length; i++)
+            myHand[i] = player.hand().id(i);
+
+        rootMyRaises = myRaises;
+        rootPhase = state.phase == GameState.Phase.DRAWING ? DRAW : BET;
+        rootCurrentBid = state.currentBid;
+        rootMainPot = state.mainPot;
+        rootSabaccPot = state.sabaccPot;
+        rootUntilCall = state.untilCall;
+        rootIsCalled = state.isCalled;
+        rootStartOfRound = state.startOfRound;
+        stake = Math.max(1, state.mainPot + raiseSize(player.credits()) + Math.max(0, state.currentBid - player.currentBid));
+
+        deck = new int[Math.max(Deck.SIZE, unseen.length)];
+        count = new int[seats];
+        value = new int[seats];
+        idiot = new int[seats];
+        credits = new int[seats];
+        bid = new int[seats];
+        raises = new int[seats];
+        hasBet = new boolean[seats];
+        hasDrawn = new boolean[seats];
+        folded = new boolean[seats];
+        allIn = new boolean[seats];
+    }
+
+    /**
+     * Start a new playout from the snapshot, dealing the opponents hidden hands at random
+     */
+    void reset(Rng rng) {
+        this.rng = rng;
+        System.arraycopy(unseen, 0, deck, 0, unseen.length);
+        deckSize = unseen.length;
+        for (int s = 0; s < seats; s++) {
+            count[s] = 0;
+            value[s] = 0;
+            idiot[s] = 0;
+            credits[s] = rootCredits[s];
+            bid[s] = rootBid[s];
+            raises[s] = 0;
+            hasBet[s] = rootHasBet[s];
+            hasDrawn[s] = rootHasDrawn[s];
+            folded[s] = rootFolded[s];
+            allIn[s] = rootAllIn[s];
+        }
+        raises[me] = rootMyRaises;
+        for (int id : myHand)
+            add(me, id);
+        for (int s = 0; s < seats; s++)
+            if (s != me)
+                for (int i = 0; i < rootCount[s]; i++)
+                    draw(s);
+
+        phase = rootPhase;
+        current = me;
+        currentBid = rootCurrentBid;
+        mainPot = rootMainPot;
+        sabaccPot = rootSabaccPot;
+        untilCall = rootUntilCall;
+        isCalled = rootIsCalled;
+        startOfRound = rootStartOfRound;
+        steps = 0;
+    }
+
+    /**
+     * The credits a seat has after paying the ante, used by every reset from now on
+     */
+    void setCredits(int seat, int credits) {
+        rootCredits[seat] = credits;
+    }
+
+    /**
+     * BET, DRAW or OVER once the round has ended
+     */
+    int phase() { return phase; }
+    int toAct() { return current; }
+
+    /**
+     * A bit for each action the seat to act can take
+     */
+    int legal() {
+        int s = current;
+        if (phase == BET) {
+            int toCall = currentBid - bid[s];
+            int mask = 1 << MATCH;
+            if (toCall > 0 || isCalled)
+                mask |= 1 << FOLD;
+            if (raises[s] < MAX_RAISES && credits[s] >= toCall + raiseSize(credits[s]))
+                mask |= 1 << RAISE;
+            if (raises[s] < MAX_RAISES && credits[s] > toCall)
+                mask |= 1 << ALL_IN;
+            return mask;
+        }
+        int mask = 1 << STAND;
+        if (deckSize > 0)
+            mask |= 1 << TAKE;
+        if (untilCall <= 0)
+            mask |= 1 << CALL;
+        return mask;
+    }
+
+    /**
+     * How many credits a raise puts in on top of matching the bid
+     */
+    int raiseSize(int credits) {
+        return Math.max(ante, (int)(credits * RAISE_SIZE));
+    }
+
+    /**
+     * The simple fixed AI every opponent is assumed to play, and every seat plays once a playout leaves the tree
+     */
+    int defaultAction() {
+        int s = current;
+        int rank = rank(s);
+        int mask = legal();
+        if (phase == BET) {
+            if (startOfRound)
+                return MATCH;
+            int toCall = currentBid - bid[s];
+            if ((mask & (1 << FOLD)) != 0 && (rank < 0 || (toCall > 0 && rank < 14)))
+                return FOLD;
+            if ((mask & (1 << RAISE)) != 0 && rank >= 20 && raises[s] == 0)
+                return RAISE;
+            return MATCH;
+        }
+        int v = Math.abs(value[s] + fieldValue[s]);
+        if ((mask & (1 << TAKE)) != 0 && count[s] < 5 && (v < 18 || (rank < 0 && v < 30)))
+            return TAKE;
+        if ((mask & (1 << CALL)) != 0 && rank >= 18)
+            return CALL;
+        return STAND;
+    }
+
+    /**
+     * Have the seat to act take an action, then move the round along until somebody has to act again
+     */
+    void apply(int action) {
+        int s = current;
+        steps++;
+        if (phase == BET) {
+            int toCall = currentBid - bid[s];
+            hasBet[s] = true;
+            if (action == FOLD)
+                folded[s] = true;
+            else if (action == RAISE) {
+                raises[s]++;
+                bet(s, toCall + raiseSize(credits[s]));
+            } else if (action == ALL_IN) {
+                raises[s]++;
+                allIn[s] = true;
+                bet(s, credits[s]);
+            } else if (toCall >= credits[s]) {
+                allIn[s] = true;
+                bet(s, credits[s]);
+            } else
+                bet(s, toCall);
+            endTurn();
+            if (phase != OVER)
+                tryToEndBetting();
+        } else {
+            if (action == CALL) {
+                // Calling starts the final betting round right away, with the caller betting first
+                isCalled = true;
+                startBettingRound();
+                return;
+            }
+            hasDrawn[s] = true;
+            if (action == TAKE)
+                draw(s);
+            endTurn();
+            if (phase != OVER && hasDrawn[current])
+                startBettingRound();
+        }
+        skipAllIn();
+    }
+
+    /**
+     * All in players have nothing left to decide in a betting round, move past them the same way the engine does
+     */
+    private void skipAllIn() {
+        while (phase == BET && allIn[current] && steps < MAX_STEPS) {
+            steps++;
+            hasBet[current] = true;
+            endTurn();
+            if (phase != OVER)
+                tryToEndBetting();
+        }
+        if (steps >= MAX_STEPS && phase != OVER)
+            showdown();
+    }
+
+    private void bet(int s, int amount) {
+        amount = Math.min(amount, credits[s]);
+        credits[s] -= amount;
+        bid[s] += amount;
+        mainPot += amount;
+        if (bid[s] > currentBid)
+            currentBid = bid[s];
+    }
+
+    /**
+     * A chance for a shift after every action, then move on to the next seat still in the hand
+     */
+    private void endTurn() {
+        if (rng.nextFloat() <= shiftChance)
+            shift();
+        int next = current;
+        for (int i = 0; i < seats; i++) {
+            next = (next + 1) % seats;
+            if (!folded[next])
+                break;
+        }
+        current = next;
+        if (stillIn() <= 1)
+            showdown();
+    }
+
+    private void tryToEndBetting() {
+        if (bid[current] != currentBid || !hasBet[current])
+            return;
+        if (startOfRound) {
+            startOfRound = false;
+            for (int s = 0; s < seats; s++) {
+                // The engine deals to every player, but there is no need to play out folded hands
+                if (folded[s])
+                    continue;
+                draw(s);
+                draw(s);
+            }
+        }
+        if (isCalled) {
+            showdown();
+            return;
+        }
+        for (int s = 0; s < seats; s++)
+            hasDrawn[s] = false;
+        untilCall--;
+        phase = DRAW;
+    }
+
+    private void startBettingRound() {
+        currentBid = 0;
+        for (int s = 0; s < seats; s++) {
+            bid[s] = 0;
+            hasBet[s] = false;
+            raises[s] = 0;
+        }
+        phase = BET;
+    }
+
+    private int stillIn() {
+        int n = 0;
+        for (int s = 0; s < seats; s++)
+            if (!folded[s])
+                n++;
+        return n;
+    }
+
+    /**
+     * Bombed out hands pay the main pot into the sabacc pot, then the best hand takes the main pot and
+     * the sabacc pot as well with a pure sabacc. Ties split the pots
+     */
+    private void showdown() {
+        phase = OVER;
+        if (stillIn() > 1) {
+            for (int s = 0; s < seats; s++) {
+                if (!folded[s] && rank(s) < 0) {
+                    int penalty = Math.min(mainPot, credits[s]);
+                    credits[s] -= penalty;
+                    sabaccPot += penalty;
+                    folded[s] = true;
+                }
+            }
+        }
+        int in = stillIn();
+
+        int best = -1;
+        int winners = 0;
+        for (int s = 0; s < seats; s++) {
+            if (folded[s])
+                continue;
+            // The last player in wins no matter their hand, but not the sabacc pot
+            int r = in == 1 ? 0 : rank(s);
+            if (r > best) {
+                best = r;
+                winners = 1;
+            } else if (r == best)
+                winners++;
+        }
+        if (winners == 0)
+            return;
+        int pot = mainPot + (best >= 23 ? sabaccPot : 0);
+        for (int s = 0; s < seats; s++)
+            if (!folded[s] && (in == 1 ? 0 : rank(s)) == best)
+                credits[s] += pot / winners;
+    }
+
+    /**
+     * How this player did in the playout, the credits they gained or lost measured against what was at stake
+     */
+    float reward() {
+        return reward(me);
+    }
+
+    float reward(int seat) {
+        return (credits[seat] - rootCredits[seat]) / stake;
+    }
+
+    /**
+     * The CFR information set of the seat to act in a betting round, see CfrPolicy.key
+     */
+    int infoSet() {
+        int s = current;
+        return CfrPolicy.key(startOfRound ? 0 : rank(s), count[s], currentBid - bid[s], mainPot, credits[s], ante,
+                raises[s], stillIn() - 1, isCalled, untilCall <= 0);
+    }
+
+    /**
+     * @return the hand value of a seat, 24 for an Idiot's Array, or -1 if they bombed out
+     */
+    private int rank(int s) {
+        if (count[s] == 3 && idiot[s] == (HAS_IDIOT | HAS_TWO | HAS_THREE))
+            return 24;
+        int v = Math.abs(value[s] + fieldValue[s]);
+        if (v > 23 || v == 0)
+            return -1;
+        return v;
+    }
+
+    /**
+     * The whole deck is refreshed, cards in a field included, and every hand is replaced with new cards.
+     * Fields are not affected
+     */
+    private void shift() {
+        System.arraycopy(SHIFT_DECK, 0, deck, 0, SHIFT_DECK.length);
+        deckSize = SHIFT_DECK.length;
+        for (int s = 0; s < seats; s++) {
+            int n = count[s];
+            count[s] = 0;
+            value[s] = 0;
+            idiot[s] = 0;
+            for (int i = 0; i < n; i++)
+                draw(s);
+        }
+    }
+
+    private void draw(int s) {
+        if (deckSize == 0)
+            return;
+        int i = rng.nextInt(deckSize);
+        int id = deck[i];
+        deckSize--;
+        deck[i] = deck[deckSize];
+        add(s, id);
+    }
+
+    private void add(int s, int id) {
+        int v = VALUES[id];
+        count[s]++;
+        value[s] += v;
+        if (v == 0)
+            idiot[s] |= HAS_IDIOT;
+        else if (v == 2)
+            idiot[s] |= HAS_TWO;
+        else if (v == 3)
+            idiot[s] |= HAS_THREE;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+
+/**
+ * How an AI player decides to bet and draw. The RulesEngine tells every strategy at the table about
+ * what happens during a round as it happens, so a strategy can keep its own running picture of the
+ * table instead of working it out again for every decision
+ *
+ * Each AI player has its own strategy, a strategy should never be shared between players
+ */
+public interface Strategy {
+
+    /**
+     * Decide how to bet in the betting round
+     * @param state the current game
+     * @param me the player this strategy is deciding for
+     * @return -1 if the player folds, -2 if the player goes all in, or an integer of how much this player will bet
+     */
+    public abstract int bet(GameState state, Player me);
+
+    /**
+     * Decide if the player should call, stand, or draw in the drawing round
+     * @param state the current game
+     * @param me the player this strategy is deciding for
+     * @return -1 if this player calls, 0 if they stand, 1 if they draw
+     */
+    public abstract int draw(GameState state, Player me);
+
+    /**
+     * Called once every player has paid the ante for a new round, before any betting
+     */
+    public abstract void roundStarted(GameState state);
+
+    /**
+     * Called at the start of every betting round, including the final one after a call
+     */
+    public abstract void bettingRoundStarted(GameState state);
+
+    /**
+     * Called whenever any player puts credits into the pot, including checks of 0 and going all in
+     * @param p the player betting, possibly the player this strategy belongs to
+     * @param amount how many credits they put in
+     */
+    public abstract void playerBet(GameState state, Player p, int amount);
+
+    /**
+     * Called whenever any player folds
+     */
+    public abstract void playerFolded(GameState state, Player p);
+
+    /**
+     * Called after a Sabacc Shift has replaced every hand
+     */
+    public abstract void sabaccShift(GameState state);
+
+}
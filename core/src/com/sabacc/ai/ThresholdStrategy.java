@@ -0,0 +1,101 @@
+package com.sabacc.ai;
+
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+
+/**
+ * The original AI, bets and draws from fixed hand value thresholds and ignores everything else
+ * happening at the table
+ */
+public class ThresholdStrategy implements Strategy {
+    // A decimal of the current amount of credits, when betting a player will bet a minimum of their
+    // minbid and fold if it is above their maxbid
+    final private float minbid;
+    final private float maxbid;
+
+    public ThresholdStrategy(float minbid, float maxbid) {
+        this.minbid = minbid;
+        this.maxbid = maxbid;
+    }
+
+    @Override
+    public int bet(GameState state, Player me) {
+        // For now, make it extremely simple
+        // Folding Conditions: (-1)
+        //  - If the player cannot afford to call the bid and their hand is bad
+        //  - If the current bid is greater than this players max bid and they do not have a pure sabacc
+        //  - If the hand value is bombed out, then fold
+        // All in Conditions: (-2)
+        //  - If the player cannot afford to call the bid and their hand is good
+        //  - If the player has less than 2x the ante credits
+        // Raising Conditions:
+        //  - If the player has a hand > 17, raise by minbid
+        //  - If the player has a pure sabacc, raise by double minbid
+        //  - If the player would bid and the current bid or their round bid is already > those values, just call
+        // Otherwise, just call
+        int bid = state.currentBid;
+        int credits = me.credits();
+        int aScore = Math.abs(me.score());
+
+        // If they have or will have less than 40 credits, always go all in as they will have to drop if they fold
+        if (bid - me.currentBid > 0 && credits - (bid - me.currentBid) < state.ante * 2)
+            return -2;
+
+        // If they cannot afford to call:
+        if (bid - me.currentBid > credits) {
+            // If their hand is bad, fold
+            if (aScore < 20)
+                return -1;
+            // If their hand is good, go all in
+            else
+                return -2;
+        }
+
+        // Fold if there is a bid and this hand sucks
+        if (bid - maxbid > 0 && aScore < 17)
+            return -1;
+
+        // If the current bid is greater than the max bid and you do not have a pure sabacc, fold
+        if (bid > maxbid * state.mainPot && aScore != 23)
+            return -1;
+        // If they are bombed out and there is a nonzero bid, fold
+        if (aScore > 23 && (bid > 0 || state.isCalled))
+            return -1;
+        // If they have a bad hand with no chance of drawing more cards, fold
+        if (me.numCards() == 5 && aScore < 14 && bid > 0)
+            return -1;
+
+        // If they have a pure sabacc, raise the bid by double minbid
+        if (aScore == 23 && bid < 2*minbid * credits && me.roundbid < 2*maxbid * credits)
+            return bid - me.currentBid + (int)(credits * 2 * minbid);
+
+        // If they have a good hand, raise the bid by minbid
+        if (aScore > 17 && aScore < 24 && bid < minbid * credits && me.roundbid < maxbid * credits)
+            return bid - me.currentBid + (int)(credits * minbid);
+
+        // Otherwise, match the bid
+        return bid - me.currentBid;
+    }
+
+    /**
+     * Very simple for now, keep drawing until their hand value is 18-23, then call
+     */
+    @Override
+    public int draw(GameState state, Player me) {
+        int aScore = Math.abs(me.score());
+        if (aScore < 18 || (aScore > 24 && aScore < 30 && me.numCards() < 4))
+            return 1;
+        if (state.untilCall <= 0 && aScore > 17 && aScore < 24)
+            return -1;
+        //if (untilCall <= 0 && Math.random() < 0.2) // Randomly call 20% of the time if able, to prevent random loops
+        //  return -1;                               // We don't really need this as eventually Sabacc Shifts will force players into good hands to call
+        return 0;
+    }
+
+    // Thresholds do not depend on anything else at the table
+    @Override public void roundStarted(GameState state) {}
+    @Override public void bettingRoundStarted(GameState state) {}
+    @Override public void playerBet(GameState state, Player p, int amount) {}
+    @Override public void playerFolded(GameState state, Player p) {}
+    @Override public void sabaccShift(GameState state) {}
+}
@@ -0,0 +1,245 @@
+package com.sabacc.engine;
+
+import com.sabacc.Deck;
+import com.sabacc.Player;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * A compact binary record of everything that happens at a table, written by the RulesEngine as it plays.
+ * Each record is a type byte followed by its fields as varints, so most actions take 2 or 3 bytes, and
+ * together with the table seed in the game record nothing that happened is lost
+ *
+ * Records are kept in a buffer and only written out between games, so any number of logs can append to
+ * one file from different threads without their games getting mixed up. Players are written as their
+ * seat at the start of the game, which never changes as players drop
+ */
+public class ActionLog {
+    public static final int MAGIC = 0x534c4f47; // "SLOG"
+    public static final int VERSION = 1;
+
+    // The record types and their fields
+    public static final byte GAME = 1;          // seed as 8 bytes, ante, seats, then the credits of each seat
+    public static final byte HAND = 2;          // a new round starts
+    public static final byte ANTE = 3;          // seat, ante paid into each pot
+    public static final byte BET = 4;           // seat, amount, a check or a match
+    public static final byte RAISE = 5;         // seat, amount
+    public static final byte ALL_IN = 6;        // seat, amount
+    public static final byte FOLD = 7;          // seat
+    public static final byte DEAL = 8;          // seat, card, dealt at the start of the round or in Sudden Demise
+    public static final byte DRAW = 9;          // seat, card, or Deck.SIZE if the deck was empty
+    public static final byte STAND = 10;        // seat
+    public static final byte CALL = 11;         // seat
+    public static final byte FIELD = 12;        // seat, card
+    public static final byte SHIFT = 13;        // players, then for each: seat, cards in hand, each card
+    public static final byte BOMB = 14;         // seat, penalty paid into the sabacc pot
+    public static final byte PAYOUT = 15;       // seat, credits won from the main pot
+    public static final byte SABACC = 16;       // seat, credits won from the sabacc pot
+    public static final byte DROP = 17;         // seat
+    public static final byte GAME_OVER = 18;
+
+    // Written out once a game is over and the buffer is at least this full
+    private static final int FLUSH_AT = 32 * 1024;
+
+    final private FileChannel channel;
+    private ByteBuffer buffer;
+
+    // The players of the current game by seat
+    final private ArrayList<Player> seats;
+
+    /**
+     * @param channel where the log is written, shared by every log writing to the same file
+     */
+    public ActionLog(FileChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(FLUSH_AT * 2);
+        seats = new ArrayList<Player>();
+    }
+
+    /**
+     * Open a log file to append to, starting it with the header if it is new
+     */
+    public static FileChannel open(File file) throws IOException {
+        FileChannel channel = new FileOutputStream(file, true).getChannel();
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining())
+                channel.write(header);
+        }
+        return channel;
+    }
+
+    /**
+     * Start a new game, every player at the table is seated in order
+     * @param seed the seed of the table's random stream, the game can be played again from it
+     */
+    public void game(long seed, GameState state) {
+        seats.clear();
+        seats.addAll(state.players);
+        room(10 + 5 * (2 + seats.size()));
+        buffer.put(GAME);
+        buffer.putLong(seed);
+        varint(state.ante);
+        varint(seats.size());
+        for (Player p : seats)
+            varint(p.credits());
+    }
+
+    /**
+     * A record with no fields
+     */
+    public void record(byte type) {
+        room(1);
+        buffer.put(type);
+    }
+
+    /**
+     * A record about a single player
+     */
+    public void record(byte type, Player p) {
+        room(6);
+        buffer.put(type);
+        varint(seat(p));
+    }
+
+    /**
+     * A record about a single player with one value, an amount of credits or a card
+     */
+    public void record(byte type, Player p, int value) {
+        room(11);
+        buffer.put(type);
+        varint(seat(p));
+        varint(value);
+    }
+
+    /**
+     * Every hand after a Sabacc Shift
+     */
+    public void shift(ArrayList<Player> players) {
+        room(6 + players.size() * (10 + 5 * Deck.SIZE));
+        buffer.put(SHIFT);
+        varint(players.size());
+        for (Player p : players) {
+            varint(seat(p));
+            varint(p.numCards());
+            for (int i = 0; i < p.numCards(); i++)
+                varint(p.hand().id(i));
+        }
+    }
+
+    /**
+     * Call once a game is over, or given up on, to write the log out if enough has built up
+     */
+    public void endGame() throws IOException {
+        if (buffer.position() >= FLUSH_AT)
+            flush();
+    }
+
+    /**
+     * Write out everything logged so far. Only call this between games when the channel is shared
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /*
+     * READING
+     */
+
+    /**
+     * Check the header of a whole log file in a buffer, leaving the buffer at the first record
+     */
+    public static void readHeader(ByteBuffer log) throws IOException {
+        if (log.remaining() < 8 || log.getInt() != MAGIC)
+            throw new IOException("Not an action log");
+        int version = log.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported action log version " + version);
+    }
+
+    public static int readVarint(ByteBuffer log) {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = log.get();
+            v |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return v;
+    }
+
+    /**
+     * Skip over the fields of a record whose type has already been read
+     */
+    public static void skip(ByteBuffer log, byte type) throws IOException {
+        switch (type) {
+            case GAME:
+                log.getLong();
+                readVarint(log);
+                for (int n = readVarint(log); n > 0; n--)
+                    readVarint(log);
+                break;
+            case HAND:
+            case GAME_OVER:
+                break;
+            case FOLD:
+            case STAND:
+            case CALL:
+            case DROP:
+                readVarint(log);
+                break;
+            case SHIFT:
+                for (int n = readVarint(log); n > 0; n--) {
+                    readVarint(log);
+                    for (int cards = readVarint(log); cards > 0; cards--)
+                        readVarint(log);
+                }
+                break;
+            default:
+                if (type < GAME || type > GAME_OVER)
+                    throw new IOException("Unknown action log record " + type + " at " + (log.position() - 1));
+                readVarint(log);
+                readVarint(log);
+        }
+    }
+
+    private int seat(Player p) {
+        int s = seats.indexOf(p);
+        if (s < 0)
+            throw new IllegalArgumentException(p.name() + " is not seated in this game");
+        return s;
+    }
+
+    /**
+     * Make sure there is room for a record, growing the buffer if a single game has outgrown it
+     */
+    private void room(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return;
+        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    /**
+     * Write a non negative int in 7 bit groups, the low group first, with the top bit set on all but the last
+     */
+    private void varint(int v) {
+        while ((v & ~0x7f) != 0) {
+            buffer.put((byte) (v & 0x7f | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+}
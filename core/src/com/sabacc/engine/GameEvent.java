@@ -0,0 +1,142 @@
+package com.sabacc.engine;
+
+import com.sabacc.Card;
+import com.sabacc.Player;
+
+/**
+ * Something that happened in the game, as its type and the player, amounts and card it was about rather
+ * than a message. The message is only put together when something asks for it, so the engine can report
+ * everything it does without building a single string
+ *
+ * Events are pooled, the RulesEngine hands each one to its listeners and then reuses it. A listener that
+ * wants to keep an event has to copy it
+ */
+public class GameEvent {
+    public enum Type {
+        ROUND_STARTED,      // a new round
+        ANTE,               // value: the ante
+        DROPPED,            // the player could not afford the ante
+        DEALING,            // starting hands are being dealt
+        SHIFT,              // a Sabacc Shift
+        FIELDED,            // the player put the card into their Interference Field
+        STILL_ALL_IN,       // the player is all in and skips betting
+        FOLDED,
+        RAISE_OVER_CREDITS, // a raise the player could not afford was turned down
+        RAISE_UNDER_BID,    // a raise that did not reach the current bid was turned down
+        NEGATIVE_BET,       // value: the bet
+        RAISED,             // value: the bet, other: the new bid
+        CHECKED,
+        MATCHED,            // value: the bet, other: the bid it matched
+        UNDER_BID,          // value: the player's bid, other: the current bid
+        ALL_IN,             // value: the credits they went all in with
+        STOOD,
+        CALLED,
+        DECK_EMPTY,         // the player tried to draw from an empty deck
+        DREW,               // the card is not given, as the other players do not see it
+        BOMBED,
+        SUDDEN_DEMISE,      // value: the tied hand value
+        DEMISE_DEALT,       // the player was dealt the card in a Sudden Demise
+        DEMISE_BOMBED,      // as above, value: the score they bombed out with
+        WON_ALONE,          // value: credits won
+        NO_WINNER,
+        SIDE_POT,           // value: credits won
+        PURE_SABACC,        // value: credits won from both pots
+        WON,                // value: credits won, other: the winning hand value
+        TEXT                // text: anything the engine does not report itself
+    }
+
+    private Type type;
+    private Player player;
+    private int value;
+    private int other;
+    private Card card;
+    private String text;
+
+    // The message, once something has asked for it
+    private String message;
+
+    public Type type() { return type; }
+    public Player player() { return player; }
+    public int value() { return value; }
+    public int other() { return other; }
+    public Card card() { return card; }
+
+    public GameEvent set(Type type, Player player, int value, int other, Card card) {
+        this.type = type;
+        this.player = player;
+        this.value = value;
+        this.other = other;
+        this.card = card;
+        text = null;
+        message = null;
+        return this;
+    }
+
+    /**
+     * Copy another event, to keep it after it has gone back to its pool
+     */
+    public GameEvent set(GameEvent e) {
+        set(e.type, e.player, e.value, e.other, e.card);
+        text = e.text;
+        message = e.message;
+        return this;
+    }
+
+    /**
+     * A message that is not about anything the engine does
+     */
+    public GameEvent text(String text) {
+        set(Type.TEXT, null, 0, 0, null);
+        this.text = text;
+        message = text;
+        return this;
+    }
+
+    /**
+     * The event as a message for the player, only put together the first time it is asked for
+     */
+    public String message() {
+        if (message == null)
+            message = append(new StringBuilder()).toString();
+        return message;
+    }
+
+    /**
+     * Write the event out as a message
+     */
+    public StringBuilder append(StringBuilder s) {
+        String name = player != null ? player.name() : "";
+        switch (type) {
+            case ROUND_STARTED: return s.append("Starting new round!");
+            case ANTE: return s.append("Ante is ").append(value);
+            case DROPPED: return s.append(name).append(" drops from the game!");
+            case DEALING: return s.append("Dealing starting hands!");
+            case SHIFT: return s.append("A Sabacc Shift has occurred!!");
+            case FIELDED: return s.append(name).append(" places ").append(card.name).append(" into the Interference Field");
+            case STILL_ALL_IN: return s.append(name).append(" is all in");
+            case FOLDED: return s.append(name).append(" has folded!");
+            case RAISE_OVER_CREDITS: return s.append("Error: Cannot raise with more credits than you have!");
+            case RAISE_UNDER_BID: return s.append("Error: Cannot raise to a value below the current bid!");
+            case NEGATIVE_BET: return s.append("ERROR: ").append(name).append(" is trying to bet a negative value of ").append(value);
+            case RAISED: return s.append(name).append(" bets ").append(value).append(" raising to ").append(other);
+            case CHECKED: return s.append(name).append(" checks");
+            case MATCHED: return s.append(name).append(" matches the bid of ").append(other).append(" with ").append(value);
+            case UNDER_BID: return s.append("ERROR: ").append(name).append(" currentBid < stage currentBid [").append(value).append(" < ").append(other).append("]");
+            case ALL_IN: return s.append(name).append(" has gone all in with their remaining ").append(value).append(" credits!");
+            case STOOD: return s.append(name).append(" stands");
+            case CALLED: return s.append(name).append(" calls the round");
+            case DECK_EMPTY: return s.append("ERROR: ").append(name).append(" tries to draw but the deck is empty");
+            case DREW: return s.append(name).append(" draws a card");
+            case BOMBED: return s.append(name).append(" has bombed out!");
+            case SUDDEN_DEMISE: return s.append("Multiple players with a hand of ").append(value).append(", enacting Sudden Demise!");
+            case DEMISE_DEALT: return s.append(name).append(" is dealt ").append(card.name);
+            case DEMISE_BOMBED: return s.append(name).append(" is dealt ").append(card.name).append(" and bombs out with ").append(value).append("!");
+            case WON_ALONE: return s.append(name).append(" won ").append(value).append(" credits as they are the only one remaining!");
+            case NO_WINNER: return s.append("There was no winner this round!");
+            case SIDE_POT: return s.append(name).append(" won a side pot of ").append(value).append(" credits");
+            case PURE_SABACC: return s.append(name).append(" won ").append(value).append(" credits with a pure sabacc!");
+            case WON: return s.append(name).append(" won ").append(value).append(" credits with a hand of ").append(other).append("!");
+        }
+        return s.append(text);
+    }
+}
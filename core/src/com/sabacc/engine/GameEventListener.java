@@ -0,0 +1,14 @@
+package com.sabacc.engine;
+
+/**
+ * Receives every GameEvent from a RulesEngine it is added to. Any number of listeners can be added, the
+ * message panel, logs and statistics each listen for themselves
+ */
+public interface GameEventListener {
+
+    /**
+     * @param e the event, only valid until this returns as it goes back to the engine's pool
+     */
+    public abstract void event(GameEvent e);
+
+}
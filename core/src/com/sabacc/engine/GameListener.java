@@ -0,0 +1,33 @@
+package com.sabacc.engine;
+
+import com.sabacc.Player;
+
+/**
+ * Receives everything the RulesEngine does that something outside of the rules might care about,
+ * so that the GameScreen can draw it and simulations can simply ignore it. What happened is told to each
+ * GameEventListener instead
+ */
+public interface GameListener {
+
+    /**
+     * Called whenever the displayed stats of a player may have changed
+     */
+    public abstract void playerUpdated(Player p);
+
+    /**
+     * Called when a player can no longer afford the ante and leaves the table
+     * @param index the index the player had in the array of players before being removed
+     */
+    public abstract void playerDropped(int index, Player p);
+
+    /**
+     * Called once all hands are revealed at the end of a round, before credits are paid out
+     */
+    public abstract void handsRevealed();
+
+    /**
+     * Called whenever the game moves to a new phase
+     */
+    public abstract void phaseChanged(GameState.Phase phase);
+
+}
@@ -0,0 +1,107 @@
+package com.sabacc.engine;
+
+import com.sabacc.Deck;
+import com.sabacc.Player;
+
+import java.util.ArrayList;
+
+/**
+ * Everything needed to describe a game of Sabacc at any point in time, without any rendering.
+ * The RulesEngine is the only thing that should be modifying this, screens and simulations
+ * should only read from it
+ */
+public class GameState {
+    /**
+     * Which part of the round the game is currently in
+     */
+    public enum Phase {
+        BETTING,
+        DRAWING,
+        ROUND_OVER,
+        GAME_OVER
+    }
+    public Phase phase;
+
+    // An array of players in the game, players are removed once they can no longer afford the ante
+    final public ArrayList<Player> players;
+
+    // The game deck
+    final public Deck deck;
+
+    // The random stream of this table, shared with the deck so a game can be played again from its seed
+    final public Rng rng;
+
+    // A couple variables set at the start of the game
+    final public int ante;
+    final public float shiftChance;
+
+    // The two pots
+    public int mainPot;
+    public int sabaccPot;
+
+    // If this is the start of the round, before the opening hands have been dealt
+    // To handle preliminary betting before the opening hands
+    public boolean startOfRound;
+
+    // If the round has been called
+    public boolean isCalled;
+
+    // The current bid of the betting round, and how much the main pot was at the start of it
+    public int currentBid;
+    public int roundStartPot;
+
+    // How many drawing rounds are run until a player can call the hand
+    public int untilCall;
+
+    // The winner of the last round, null if nobody won
+    public Player winner;
+
+    // How many rounds have been started this game
+    public int rounds;
+
+    // The index of the current player
+    private int currentPlayer;
+    public Player getCurrentPlayer() {
+        // Double check, this is a bit lazy, fix it later
+        while (currentPlayer >= players.size())
+            currentPlayer = (currentPlayer + 1) % players.size();
+        return players.get(currentPlayer);
+    }
+
+    /**
+     * Move the current player index to the next player who has not folded
+     */
+    void advancePlayer() {
+        currentPlayer = (currentPlayer + 1) % players.size();
+        // Stop after a full loop so that this can never get stuck if everybody has folded
+        for (int i = 1; i < players.size() && players.get(currentPlayer).folded; i++)
+            currentPlayer = (currentPlayer + 1) % players.size();
+    }
+
+    public GameState(Deck deck, int ante, float shiftChance) {
+        this.deck = deck;
+        rng = deck.rng();
+        this.ante = ante;
+        this.shiftChance = shiftChance;
+        players = new ArrayList<Player>();
+        untilCall = 4;
+        phase = Phase.ROUND_OVER;
+    }
+
+    /**
+     * Determine if all players or all players minus 1 have folded so that the round ends
+     * @return true if this condition is met, false otherwise
+     */
+    public boolean allFolded() {
+        boolean oneNotFolded = false;
+        for (Player p : players) {
+            if (p.folded)
+                continue;
+            if (oneNotFolded)
+                return false;
+            else
+                oneNotFolded = true;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,192 @@
+package com.sabacc.engine;
+
+import com.sabacc.Deck;
+import com.sabacc.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Writes every round a RulesEngine finishes to a HandStore, as a HandRecord with who was still in, who
+ * folded, went all in or bombed out, both pots at the showdown, every hand and field, the Sabacc Shifts and
+ * the winner, and what the round did to everybody's credits. Rounds given up on before the showdown are not
+ * written
+ *
+ * Like the ActionLog, rounds are kept in a buffer and only added to the store between games, and players
+ * are written as their seat at the start of the game
+ */
+public class HandHistory {
+    // Added to the store once a game is over and the buffer is at least this full
+    private static final int FLUSH_AT = 32 * 1024;
+
+    final private HandStore store;
+    private ByteBuffer buffer;
+
+    // The current game, and the players of it by seat
+    private long seed;
+    final private ArrayList<Player> seats;
+
+    // The credits of each seat at the end of the last round
+    private int[] credits;
+
+    // What happened in the current round so far
+    private int shifts;
+    private int shiftChances;
+    private int folded;
+    private int allIn;
+    private int bombed;
+    private int mainPot;
+    private int sabaccPot;
+
+    /**
+     * @param store where rounds are written, shared by every history writing to it
+     */
+    public HandHistory(HandStore store) {
+        this.store = store;
+        buffer = ByteBuffer.allocate(FLUSH_AT * 2);
+        seats = new ArrayList<Player>();
+    }
+
+    /**
+     * Start a new game, every player at the table is seated in order
+     */
+    public void game(long seed, GameState state) {
+        if (state.players.size() > HandRecord.MAX_SEATS)
+            throw new IllegalArgumentException("A hand history can only seat " + HandRecord.MAX_SEATS + " players");
+        this.seed = seed;
+        seats.clear();
+        seats.addAll(state.players);
+        if (credits == null || credits.length < seats.size())
+            credits = new int[seats.size()];
+        for (int s = 0; s < seats.size(); s++)
+            credits[s] = seats.get(s).credits();
+        shifts = 0;
+        shiftChances = 0;
+        bombed = 0;
+    }
+
+    /**
+     * A Sabacc Shift could happen now, whether or not it does
+     */
+    public void shiftChance() {
+        shiftChances++;
+    }
+
+    public void shift() {
+        shifts++;
+    }
+
+    /**
+     * The round has reached the showdown, call before anybody bombs out. Players who have put all their
+     * credits in count as all in, whether or not they had to go all in to match the bid
+     */
+    public void showdown(GameState state) {
+        folded = 0;
+        allIn = 0;
+        for (Player p : state.players) {
+            if (p.folded)
+                folded |= 1 << seat(p);
+            if (p.isAllIn || p.credits() == 0)
+                allIn |= 1 << seat(p);
+        }
+        mainPot = state.mainPot;
+        sabaccPot = state.sabaccPot;
+    }
+
+    public void bomb(Player p) {
+        bombed |= 1 << seat(p);
+    }
+
+    /**
+     * The round is over and paid out
+     * @param winner the winner, or null if nobody won
+     * @param winningHand the hand value they won with, 0 if everybody else folded
+     */
+    public void hand(GameState state, Player winner, int winningHand) {
+        int playing = 0;
+        for (Player p : state.players)
+            playing |= 1 << seat(p);
+
+        room(HandRecord.HEADER + seats.size() * (12 + Deck.SIZE));
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        buffer.put((byte) seats.size());
+        buffer.put((byte) (winner != null ? seat(winner) : -1));
+        buffer.put((byte) winningHand);
+        buffer.put((byte) Math.min(shifts, Byte.MAX_VALUE));
+        buffer.putInt(playing);
+        buffer.putInt(folded);
+        buffer.putInt(allIn);
+        buffer.putInt(bombed);
+        buffer.putLong(seed);
+        buffer.putInt(state.rounds);
+        buffer.putInt(mainPot);
+        buffer.putInt(sabaccPot);
+        buffer.putShort((short) Math.min(shiftChances, Short.MAX_VALUE));
+        for (int s = 0; s < seats.size(); s++) {
+            if ((playing & 1 << s) == 0)
+                continue;
+            Player p = seats.get(s);
+            varint(p.credits());
+            int swing = p.credits() - credits[s];
+            varint(swing << 1 ^ swing >> 31);
+            credits[s] = p.credits();
+            buffer.put((byte) p.numCards());
+            for (int i = 0; i < p.numCards(); i++)
+                buffer.put((byte) p.hand().id(i));
+            buffer.put((byte) p.numField());
+            for (int i = 0; i < p.numField(); i++)
+                buffer.put((byte) p.field().id(i));
+        }
+        buffer.putShort(start + HandRecord.LENGTH, (short) (buffer.position() - start));
+
+        shifts = 0;
+        shiftChances = 0;
+        bombed = 0;
+    }
+
+    /**
+     * Call once a game is over, or given up on, to add the rounds to the store if enough have built up
+     */
+    public void endGame() throws IOException {
+        if (buffer.position() >= FLUSH_AT)
+            flush();
+    }
+
+    /**
+     * Add every round written so far to the store
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        store.append(buffer);
+        buffer.clear();
+    }
+
+    private int seat(Player p) {
+        int s = seats.indexOf(p);
+        if (s < 0)
+            throw new IllegalArgumentException(p.name() + " is not seated in this game");
+        return s;
+    }
+
+    /**
+     * Make sure there is room for a record, growing the buffer if a single game has outgrown it
+     */
+    private void room(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    private void varint(int v) {
+        while ((v & ~0x7f) != 0) {
+            buffer.put((byte) (v & 0x7f | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+}
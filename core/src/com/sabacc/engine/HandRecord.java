@@ -0,0 +1,149 @@
+package com.sabacc.engine;
+
+import com.sabacc.Deck;
+import com.sabacc.Hand;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One finished round in a HandStore, read straight out of the mapped store without copying anything.
+ * A record can be pointed at another round, so a scan over millions of rounds only ever uses one
+ *
+ * Each round starts with a fixed header, so that what a query is most likely to look at is read from a
+ * fixed place. Every seat still at the table follows in seat order, with their credits after the payout
+ * as a varint and how much that changed in the round as a zigzag varint, then the card ids in their hand
+ * and in their Interference Field, each preceded by a count
+ */
+public class HandRecord {
+    // Where each field of the header is, from the start of the record
+    static final int LENGTH = 0;            // short, the length of the whole record
+    static final int SEATS = 2;             // byte, how many seats the game started with
+    static final int WINNER = 3;            // byte, the seat of the winner, or -1 if nobody won
+    static final int WINNING_HAND = 4;      // byte, the hand value the round was won with, 0 if everybody else folded
+    static final int SHIFTS = 5;            // byte, Sabacc Shifts during the round
+    static final int PLAYING = 6;           // int, a bit for every seat still at the table
+    static final int FOLDED = 10;           // int, a bit for every seat that folded before the showdown
+    static final int ALL_IN = 14;           // int, a bit for every seat that had put in all their credits
+    static final int BOMBED = 18;           // int, a bit for every seat that bombed out at the showdown
+    static final int SEED = 22;             // long, the seed of the game
+    static final int HAND = 30;             // int, the round of the game, from 1
+    static final int MAIN_POT = 34;         // int, the main pot at the showdown
+    static final int SABACC_POT = 38;       // int, the sabacc pot at the showdown
+    static final int SHIFT_CHANCES = 42;    // short, how many times a Sabacc Shift could have happened
+    static final int HEADER = 44;
+
+    // The seats are kept as bits in an int
+    public static final int MAX_SEATS = 32;
+
+    private ByteBuffer buffer;
+    private int position;
+    private long number;
+
+    void set(ByteBuffer buffer, int position, long number) {
+        this.buffer = buffer;
+        this.position = position;
+        this.number = number;
+    }
+
+    ByteBuffer buffer() { return buffer; }
+    int position() { return position; }
+
+    /**
+     * Where this round is in the store, from 0
+     */
+    public long number() { return number; }
+
+    public int length() { return buffer.getShort(position + LENGTH) & 0xffff; }
+    public int seats() { return buffer.get(position + SEATS); }
+    public int winner() { return buffer.get(position + WINNER); }
+    public int winningHand() { return buffer.get(position + WINNING_HAND); }
+    public int shifts() { return buffer.get(position + SHIFTS); }
+    public long seed() { return buffer.getLong(position + SEED); }
+    public int hand() { return buffer.getInt(position + HAND); }
+    public int mainPot() { return buffer.getInt(position + MAIN_POT); }
+    public int sabaccPot() { return buffer.getInt(position + SABACC_POT); }
+    public int shiftChances() { return buffer.getShort(position + SHIFT_CHANCES); }
+
+    public boolean playing(int seat) { return (buffer.getInt(position + PLAYING) & 1 << seat) != 0; }
+    public boolean folded(int seat) { return (buffer.getInt(position + FOLDED) & 1 << seat) != 0; }
+    public boolean allIn(int seat) { return (buffer.getInt(position + ALL_IN) & 1 << seat) != 0; }
+    public boolean bombed(int seat) { return (buffer.getInt(position + BOMBED) & 1 << seat) != 0; }
+
+    /**
+     * The credits a seat was left with once the round was paid out
+     */
+    public int credits(int seat) {
+        return varint(at(seat));
+    }
+
+    /**
+     * How much a seat won or lost in the round, including the ante
+     */
+    public int swing(int seat) {
+        int p = at(seat);
+        while (buffer.get(p++) < 0);
+        int v = varint(p);
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    public int numCards(int seat) { return buffer.get(cardsAt(seat)); }
+    public int card(int seat, int i) { return buffer.get(cardsAt(seat) + 1 + i); }
+
+    public int numField(int seat) { return buffer.get(fieldAt(seat)); }
+    public int field(int seat, int i) { return buffer.get(fieldAt(seat) + 1 + i); }
+
+    /**
+     * Read the hand and Interference Field of a seat, in one go rather than card by card
+     */
+    public void cards(int seat, Hand hand, Hand field) {
+        int p = cardsAt(seat);
+        hand.clear();
+        for (int n = buffer.get(p++); n > 0; n--)
+            hand.add(Deck.card(buffer.get(p++)));
+        field.clear();
+        for (int n = buffer.get(p++); n > 0; n--)
+            field.add(Deck.card(buffer.get(p++)));
+    }
+
+    private int cardsAt(int seat) {
+        int p = at(seat);
+        while (buffer.get(p++) < 0);
+        while (buffer.get(p++) < 0);
+        return p;
+    }
+
+    private int fieldAt(int seat) {
+        int p = cardsAt(seat);
+        return p + 1 + buffer.get(p);
+    }
+
+    /**
+     * Find where a seat starts, walking over the seats before it
+     */
+    private int at(int seat) {
+        if (!playing(seat))
+            throw new IllegalArgumentException("Seat " + seat + " was not at the table in this round");
+        int p = position + HEADER;
+        for (int s = 0; s < seat; s++) {
+            if (!playing(s))
+                continue;
+            while (buffer.get(p++) < 0);
+            while (buffer.get(p++) < 0);
+            p += 1 + buffer.get(p);
+            p += 1 + buffer.get(p);
+        }
+        return p;
+    }
+
+    private int varint(int p) {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(p++);
+            v |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return v;
+    }
+}
@@ -0,0 +1,420 @@
+package com.sabacc.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Every finished round kept on disk as a HandRecord, so that questions like which hands a seat went all
+ * in can be asked across millions of rounds without reading them all into memory
+ *
+ * Rounds are only ever appended. They go into segment files of up to 64MB, each named after the number of
+ * its first round, and every 256th round of a segment has its offset written to an index file beside it.
+ * Reads memory map the segments and walk the rounds in place, the index is only used to find where to
+ * start. Any number of HandHistory writers can append to one store from different threads
+ */
+public class HandStore {
+    public static final int MAGIC = 0x53484853; // "SHHS"
+    public static final int VERSION = 2;
+
+    public static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int INDEX_EVERY = 256;
+
+    // A segment starts with the magic, the version and the number of its first round
+    private static final int HEADER = 16;
+
+    /**
+     * Called for each round of a scan
+     */
+    public interface Visitor {
+        /**
+         * @param hand the round, only valid until this returns
+         * @return false to stop the scan
+         */
+        public abstract boolean visit(HandRecord hand);
+    }
+
+    private static class Segment {
+        final File data;
+        final File index;
+        final long first;
+
+        int count;      // Rounds in the segment
+        int size;       // Bytes in the data file
+        int[] offsets;  // Of every INDEX_EVERY round
+        int indexed;
+
+        // Full segments are only mapped once
+        MappedByteBuffer map;
+
+        Segment(File dir, long first) {
+            String name = String.format("%012d", first);
+            data = new File(dir, name + ".hhs");
+            index = new File(dir, name + ".hhi");
+            this.first = first;
+            offsets = new int[64];
+        }
+
+        void index(int offset) {
+            if (indexed == offsets.length)
+                offsets = Arrays.copyOf(offsets, indexed * 2);
+            offsets[indexed++] = offset;
+        }
+    }
+
+    final private File dir;
+    final private ArrayList<Segment> segments;
+    private long count;
+
+    // The last segment, the only one that is written to
+    private Segment tail;
+    private FileChannel data;
+    private FileChannel index;
+    private int saved;      // Index entries of the tail already written out
+
+    /**
+     * Open a store, creating it if the directory has none. A round cut short by a crash at the end of the
+     * store is dropped
+     */
+    public HandStore(File dir) throws IOException {
+        this.dir = dir;
+        segments = new ArrayList<Segment>();
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Could not create " + dir);
+
+        String[] names = dir.list();
+        if (names == null)
+            throw new IOException("Could not list " + dir);
+        Arrays.sort(names);
+        for (String name : names) {
+            if (!name.endsWith(".hhs"))
+                continue;
+            try {
+                segments.add(new Segment(dir, Long.parseLong(name.substring(0, name.length() - 4))));
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a hand history segment: " + name);
+            }
+        }
+
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            Segment s = segments.get(i);
+            s.count = (int) (segments.get(i + 1).first - s.first);
+            s.size = (int) s.data.length();
+            readIndex(s);
+            if (s.indexed < (s.count + INDEX_EVERY - 1) / INDEX_EVERY)
+                rebuildIndex(s);
+        }
+        if (segments.isEmpty())
+            create(0);
+        else
+            recover(segments.get(segments.size() - 1));
+    }
+
+    /**
+     * How many rounds the store holds
+     */
+    public synchronized long count() { return count; }
+
+    /**
+     * The number of the first round in the segment that holds a round, index entries are every INDEX_EVERY
+     * rounds from there
+     */
+    public synchronized long segmentFirst(long number) {
+        for (int i = segments.size() - 1; i > 0; i--)
+            if (segments.get(i).first <= number)
+                return segments.get(i).first;
+        return segments.get(0).first;
+    }
+
+    /**
+     * Add rounds written by a HandHistory
+     * @param records whole records from the position to the limit, the buffer is left at its limit
+     */
+    public synchronized void append(ByteBuffer records) throws IOException {
+        int end = records.limit();
+        int run = records.position();
+        int size = tail.size;
+        for (int p = run; p < end; ) {
+            int length = records.getShort(p + HandRecord.LENGTH) & 0xffff;
+            if (size + length > SEGMENT_SIZE && size > HEADER) {
+                write(records, run, p);
+                create(count);
+                run = p;
+                size = tail.size;
+            }
+            if (tail.count % INDEX_EVERY == 0)
+                tail.index(size);
+            tail.count++;
+            count++;
+            size += length;
+            p += length;
+        }
+        write(records, run, end);
+        records.position(end);
+    }
+
+    /**
+     * Visit every round from one on, in the order they were added. Rounds added during the scan are not seen
+     * @param from the number of the first round to visit
+     * @return how many rounds were visited
+     */
+    public long scan(long from, Visitor visitor) throws IOException {
+        return scan(from, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visit the rounds from one up to another, in the order they were added
+     * @param from the number of the first round to visit
+     * @param to the number of the round after the last one to visit
+     * @return how many rounds were visited
+     */
+    public long scan(long from, long to, Visitor visitor) throws IOException {
+        // append() may replace the tail's offsets as it grows, so they are taken along with its count and size.
+        // Entries already in the array are never changed, only added after
+        Segment[] all;
+        int tailCount;
+        int tailSize;
+        int[] tailOffsets;
+        synchronized (this) {
+            all = segments.toArray(new Segment[segments.size()]);
+            tailCount = tail.count;
+            tailSize = tail.size;
+            tailOffsets = tail.offsets;
+        }
+
+        HandRecord hand = new HandRecord();
+        long visited = 0;
+        for (int i = find(all, from); i < all.length && all[i].first < to; i++) {
+            Segment s = all[i];
+            boolean last = i == all.length - 1;
+            int n = (int) Math.min(last ? tailCount : s.count, to - s.first);
+            if (from >= s.first + n)
+                continue;
+            ByteBuffer map = map(s, last ? tailSize : s.size);
+            int r = (int) Math.max(0, from - s.first);
+            int p = start(last ? tailOffsets : s.offsets, map, r);
+            for (; r < n; r++) {
+                hand.set(map, p, s.first + r);
+                visited++;
+                if (!visitor.visit(hand))
+                    return visited;
+                p += hand.length();
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Read a single round
+     * @return the round, or null if the store does not have it
+     */
+    public HandRecord get(long number) throws IOException {
+        final HandRecord[] found = new HandRecord[1];
+        scan(number, new Visitor() {
+            @Override
+            public boolean visit(HandRecord hand) {
+                found[0] = new HandRecord();
+                found[0].set(hand.buffer(), hand.position(), hand.number());
+                return false;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * Stop appending, rounds already read stay readable
+     */
+    public synchronized void close() throws IOException {
+        if (data != null)
+            data.close();
+        if (index != null)
+            index.close();
+        data = null;
+        index = null;
+    }
+
+    /**
+     * The segment that holds a round, by binary search over their first rounds
+     */
+    private static int find(Segment[] all, long number) {
+        int lo = 0;
+        int hi = all.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (all[mid].first <= number)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Where a round of a segment starts, from the index entry before it and walking the rest of the way
+     */
+    private static int start(int[] offsets, ByteBuffer map, int r) {
+        int p = offsets[r / INDEX_EVERY];
+        for (int k = r % INDEX_EVERY; k > 0; k--)
+            p += map.getShort(p + HandRecord.LENGTH) & 0xffff;
+        return p;
+    }
+
+    private ByteBuffer map(Segment s, int size) throws IOException {
+        if (s.map != null)
+            return s.map;
+        RandomAccessFile raf = new RandomAccessFile(s.data, "r");
+        try {
+            MappedByteBuffer map = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            // The tail is mapped again on every scan as it grows, a full segment never changes
+            synchronized (this) {
+                if (s != tail && size == s.size)
+                    s.map = map;
+            }
+            return map;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Start a new segment and make it the one that is appended to
+     */
+    private void create(long first) throws IOException {
+        close();
+        Segment s = new Segment(dir, first);
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(first).flip();
+        data = new RandomAccessFile(s.data, "rw").getChannel();
+        data.truncate(0);
+        while (header.hasRemaining())
+            data.write(header, header.position());
+        index = new RandomAccessFile(s.index, "rw").getChannel();
+        index.truncate(0);
+        s.size = HEADER;
+        segments.add(s);
+        tail = s;
+        saved = 0;
+    }
+
+    /**
+     * Open the last segment for appending. Its index may be missing entries for rounds written just before a
+     * crash, and the last round may have only been partly written, so the rounds after the last index entry
+     * are walked to find where it really ends
+     */
+    private void recover(Segment s) throws IOException {
+        readIndex(s);
+        data = new RandomAccessFile(s.data, "rw").getChannel();
+        index = new RandomAccessFile(s.index, "rw").getChannel();
+        int size = (int) data.size();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && data.read(header, header.position()) > 0);
+        header.flip();
+        if (header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != s.first)
+            throw new IOException("Not a hand history segment: " + s.data);
+
+        while (s.indexed > 0 && s.offsets[s.indexed - 1] >= size)
+            s.indexed--;
+        s.count = s.indexed > 0 ? (s.indexed - 1) * INDEX_EVERY : 0;
+        int p = s.indexed > 0 ? s.offsets[s.indexed - 1] : HEADER;
+        if (s.indexed > 0)
+            s.indexed--;
+        ByteBuffer length = ByteBuffer.allocate(2);
+        while (p + HandRecord.HEADER <= size) {
+            length.clear();
+            while (length.hasRemaining() && data.read(length, p + length.position()) > 0);
+            int n = length.getShort(0) & 0xffff;
+            if (n < HandRecord.HEADER || p + n > size)
+                break;
+            if (s.count % INDEX_EVERY == 0)
+                s.index(p);
+            s.count++;
+            p += n;
+        }
+
+        data.truncate(p);
+        index.truncate(0);
+        saved = 0;
+        s.size = p;
+        tail = s;
+        writeIndex();
+        for (Segment o : segments)
+            count += o.count;
+    }
+
+    private void readIndex(Segment s) throws IOException {
+        if (!s.index.exists())
+            return;
+        RandomAccessFile raf = new RandomAccessFile(s.index, "r");
+        try {
+            int n = (int) (raf.length() / 4);
+            byte[] bytes = new byte[n * 4];
+            raf.readFully(bytes);
+            ByteBuffer b = ByteBuffer.wrap(bytes);
+            for (int i = 0; i < n; i++)
+                s.index(b.getInt());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Index a full segment again by walking every round, when its index file is missing or cut short, and
+     * write the index back out so it is only walked once
+     */
+    private void rebuildIndex(Segment s) throws IOException {
+        ByteBuffer map = map(s, s.size);
+        s.indexed = 0;
+        int p = HEADER;
+        for (int r = 0; r < s.count; r++) {
+            if (p + HandRecord.HEADER > s.size)
+                throw new IOException("Hand history segment " + s.data + " is missing rounds");
+            if (r % INDEX_EVERY == 0)
+                s.index(p);
+            p += map.getShort(p + HandRecord.LENGTH) & 0xffff;
+        }
+
+        ByteBuffer entries = ByteBuffer.allocate(s.indexed * 4);
+        for (int i = 0; i < s.indexed; i++)
+            entries.putInt(s.offsets[i]);
+        entries.flip();
+        RandomAccessFile raf = new RandomAccessFile(s.index, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            while (entries.hasRemaining())
+                channel.write(entries, entries.position());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Write records to the tail, then the index entries that point at them
+     */
+    private void write(ByteBuffer records, int from, int to) throws IOException {
+        ByteBuffer run = records.duplicate();
+        run.limit(to);
+        run.position(from);
+        while (run.hasRemaining())
+            tail.size += data.write(run, tail.size);
+        writeIndex();
+    }
+
+    private void writeIndex() throws IOException {
+        if (saved == tail.indexed)
+            return;
+        ByteBuffer entries = ByteBuffer.allocate((tail.indexed - saved) * 4);
+        for (int i = saved; i < tail.indexed; i++)
+            entries.putInt(tail.offsets[i]);
+        entries.flip();
+        while (entries.hasRemaining())
+            index.write(entries, saved * 4L + entries.position());
+        saved = tail.indexed;
+    }
+}
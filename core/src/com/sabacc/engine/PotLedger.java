@@ -0,0 +1,164 @@
+package com.sabacc.engine;
+
+import com.sabacc.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Keeps track of how much each player has put into the main pot this round, so that it can be split into
+ * a main pot and side pots when players are all in for different amounts. Bets are only added up as they
+ * are made, the pots are worked out once at the showdown
+ *
+ * A player can only win from each other player as much as they put in themselves. Credits left in the
+ * main pot from earlier rounds can be won by anybody
+ */
+public class PotLedger {
+    // Each player at the table this round and how much they have put in, by seat
+    private Player[] seats;
+    private int[] paid;
+    private int size;
+    private int carried;
+
+    // Scratch space for the showdown: seats sorted by what they paid, the best ranked player who is in for at
+    // least as much as each of them, the rank of each seat and what each ranked player won
+    private long[] sorted;
+    private int[] bestFrom;
+    private int[] rank;
+    private int[] won;
+
+    public PotLedger() {
+        grow(8);
+    }
+
+    private void grow(int n) {
+        seats = new Player[n];
+        paid = new int[n];
+        sorted = new long[n];
+        bestFrom = new int[n];
+        rank = new int[n];
+        won = new int[n];
+    }
+
+    /**
+     * Start a new round with nothing paid in yet
+     * @param players everybody at the table this round
+     * @param carried what is left in the main pot from earlier rounds
+     */
+    public void reset(ArrayList<Player> players, int carried) {
+        if (players.size() > seats.length)
+            grow(players.size());
+        size = players.size();
+        for (int i = 0; i < size; i++) {
+            seats[i] = players.get(i);
+            paid[i] = 0;
+        }
+        Arrays.fill(seats, size, seats.length, null);
+        this.carried = carried;
+    }
+
+    private int seat(Player p) {
+        for (int i = 0; i < size; i++)
+            if (seats[i] == p)
+                return i;
+        throw new IllegalArgumentException(p.name() + " is not at the table this round");
+    }
+
+    /**
+     * A player puts credits into the main pot
+     */
+    public void add(Player p, int amount) {
+        paid[seat(p)] += amount;
+    }
+
+    public int paid(Player p) { return paid[seat(p)]; }
+
+    /**
+     * Everything in the main pot
+     */
+    public int total() {
+        int total = carried;
+        for (int i = 0; i < size; i++)
+            total += paid[i];
+        return total;
+    }
+
+    /**
+     * The most a player can win from the main pot with what they have put in so far, every other player
+     * only pays them up to the same amount
+     */
+    public int winnable(Player p) {
+        int mine = paid(p);
+        int total = carried;
+        for (int i = 0; i < size; i++)
+            total += Math.min(paid[i], mine);
+        return total;
+    }
+
+    /**
+     * Split the main pot at the showdown. Going up through what each player paid, every level makes a pot
+     * from what everybody put in between the level below and that one, and it goes to the best hand that
+     * paid at least that much. Anything folded players put in above the last level goes to that level.
+     * Sorting the seats is the only part that is more than a single pass
+     * @param ranked the players who can win, the best hand first
+     * @return how much was paid out altogether, see won() for who won what. When nobody can win, nothing is
+     *         paid and the credits stay in the main pot
+     */
+    public int payout(ArrayList<Player> ranked) {
+        Arrays.fill(rank, 0, size, -1);
+        Arrays.fill(won, 0, size, 0);
+        for (int r = 0; r < ranked.size(); r++)
+            rank[seat(ranked.get(r))] = r;
+
+        // Sort by what was paid, keeping the seat in the low bits
+        for (int i = 0; i < size; i++)
+            sorted[i] = (long) paid[i] << 32 | i;
+        Arrays.sort(sorted, 0, size);
+
+        // Working back from the top, the best ranked player who paid at least as much as each seat
+        int best = Integer.MAX_VALUE;
+        int last = -1;
+        for (int j = size - 1; j >= 0; j--) {
+            int r = rank[(int) sorted[j]];
+            if (r >= 0) {
+                best = Math.min(best, r);
+                if (last < 0)
+                    last = j;
+            }
+            bestFrom[j] = best;
+        }
+        if (last < 0)
+            return 0;
+
+        int pot = carried;
+        int level = -1;
+        int levelFrom = 0;      // The first seat that paid as much as the current level
+        int paidOut = 0;
+        for (int j = 0; j <= last; j++) {
+            int c = (int) (sorted[j] >>> 32);
+            if (c != level) {
+                // Everybody from here up paid at least this much
+                pot += (c - Math.max(level, 0)) * (size - j);
+                level = c;
+                levelFrom = j;
+            }
+            if (rank[(int) sorted[j]] < 0)
+                continue;
+            won[bestFrom[levelFrom]] += pot;
+            paidOut += pot;
+            pot = 0;
+        }
+
+        // What folded players put in above the last level goes to the best hand of everybody on that level,
+        // not just the last of them to be sorted
+        int rest = total() - paidOut;
+        won[bestFrom[levelFrom]] += rest;
+        return paidOut + rest;
+    }
+
+    /**
+     * What a ranked player won in the last payout
+     * @param rank their place in the ranking given to payout()
+     */
+    public int won(int rank) { return won[rank]; }
+}
@@ -0,0 +1,349 @@
+package com.sabacc.engine;
+
+import com.sabacc.Card;
+import com.sabacc.Deck;
+import com.sabacc.Player;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Plays a game back from its ActionLog, rebuilding the credits, pots, hands and deck at every step without
+ * running any strategies, so what is seen is exactly what happened. The log holds every card and amount,
+ * the seed only picks which game to play back
+ *
+ * Opening a game reads through it once and keeps a keyframe of the whole state at the start of every few
+ * hands. Seeking to a hand starts from the nearest keyframe before it and only plays forward from there
+ */
+public class Replay {
+    // A keyframe is kept at the start of every this many hands
+    public static final int KEYFRAME_EVERY = 16;
+
+    /**
+     * Everything needed to carry on playing back from a point in the log
+     */
+    private static class Keyframe {
+        final int position;
+        final int rounds;
+        final int mainPot;
+        final int sabaccPot;
+        final long deckLow;
+        final long deckHigh;
+        final int[] credits;
+        final boolean[] inGame;
+        final boolean[] folded;
+        final byte[][] hands;
+        final byte[][] fields;
+
+        Keyframe(Replay r) {
+            position = r.in.position();
+            rounds = r.state.rounds;
+            mainPot = r.state.mainPot;
+            sabaccPot = r.state.sabaccPot;
+            deckLow = r.deckLow;
+            deckHigh = r.deckHigh;
+            int n = r.seats.length;
+            credits = new int[n];
+            inGame = new boolean[n];
+            folded = new boolean[n];
+            hands = new byte[n][];
+            fields = new byte[n][];
+            for (int i = 0; i < n; i++) {
+                Player p = r.seats[i];
+                credits[i] = p.credits();
+                inGame[i] = r.state.players.contains(p);
+                folded[i] = p.folded;
+                hands[i] = new byte[p.numCards()];
+                for (int c = 0; c < hands[i].length; c++)
+                    hands[i][c] = (byte) p.hand().id(c);
+                fields[i] = new byte[p.numField()];
+                for (int c = 0; c < fields[i].length; c++)
+                    fields[i][c] = (byte) p.field().id(c);
+            }
+        }
+    }
+
+    // A reading position of its own in the log, which may be shared
+    final private ByteBuffer in;
+    final private int start;        // Just after the game record
+
+    final private long seed;
+    final private Player[] seats;
+    final private int[] startingCredits;
+    final private GameState state;
+
+    // The cards still in the deck, a bit per card id
+    private long deckLow;
+    private long deckHigh;
+
+    final private ArrayList<Keyframe> keyframes;
+    private int hands;
+
+    // The last record played back, and the seat and value it was about, or -1
+    private byte type;
+    private int seat;
+    private int value;
+
+    /**
+     * @param log a whole log file, it is only read so it can be shared with other replays
+     * @param position where the game record of the game starts
+     */
+    public Replay(ByteBuffer log, int position) throws IOException {
+        in = log.duplicate();
+        in.position(position);
+        if (in.get() != ActionLog.GAME)
+            throw new IOException("No game starts at " + position);
+        seed = in.getLong();
+        int ante = ActionLog.readVarint(in);
+        seats = new Player[ActionLog.readVarint(in)];
+        startingCredits = new int[seats.length];
+        state = new GameState(new Deck(new SplittableRng(seed)), ante, 0);
+        for (int i = 0; i < seats.length; i++) {
+            startingCredits[i] = ActionLog.readVarint(in);
+            seats[i] = new Player(false, "Seat " + i, startingCredits[i]);
+            state.players.add(seats[i]);
+        }
+        start = in.position();
+        keyframes = new ArrayList<Keyframe>();
+
+        // Read through the whole game once, keeping keyframes on the way
+        while (step() >= 0) {
+            if (type == ActionLog.HAND && (state.rounds - 1) % KEYFRAME_EVERY == 0)
+                keyframes.add(new Keyframe(this));
+        }
+        hands = state.rounds;
+        rewind();
+    }
+
+    /**
+     * Find a game in a log by its seed
+     * @param log a whole log file
+     * @param game which of the games with this seed, as a table that starts a new game keeps its seed
+     * @return the game, or null if the log does not have it
+     */
+    public static Replay find(ByteBuffer log, long seed, int game) throws IOException {
+        ByteBuffer b = log.duplicate();
+        b.position(0);
+        ActionLog.readHeader(b);
+        while (b.hasRemaining()) {
+            int position = b.position();
+            byte type = b.get();
+            if (type == ActionLog.GAME && b.getLong(b.position()) == seed && game-- == 0)
+                return new Replay(log, position);
+            ActionLog.skip(b, type);
+        }
+        return null;
+    }
+
+    public long seed() { return seed; }
+    public GameState state() { return state; }
+    public Player seat(int i) { return seats[i]; }
+    public int seats() { return seats.length; }
+
+    /**
+     * How many hands the game lasted
+     */
+    public int hands() { return hands; }
+
+    // The last record played back
+    public byte type() { return type; }
+    public int seat() { return seat; }
+    public int value() { return value; }
+
+    public boolean inDeck(int id) {
+        return id < 64 ? (deckLow & 1L << id) != 0 : (deckHigh & 1L << id) != 0;
+    }
+    public int deckSize() { return Long.bitCount(deckLow) + Long.bitCount(deckHigh); }
+
+    /**
+     * Go back to the start of the game, before the first hand
+     */
+    public void rewind() {
+        in.position(start);
+        state.players.clear();
+        for (Player p : seats) {
+            p.clearCards();
+            p.folded = false;
+            p.isAllIn = false;
+            state.players.add(p);
+        }
+        state.mainPot = 0;
+        state.sabaccPot = 0;
+        state.rounds = 0;
+        state.isCalled = false;
+        state.winner = null;
+        state.phase = GameState.Phase.ROUND_OVER;
+        fullDeck();
+        type = 0;
+        seat = -1;
+        value = -1;
+        for (int i = 0; i < seats.length; i++)
+            seats[i].modifyCredits(startingCredits[i] - seats[i].credits());
+    }
+
+    /**
+     * Jump to the start of a hand, just before the antes are paid
+     * @param hand from 1 to hands()
+     */
+    public void seekHand(int hand) {
+        if (hand < 1 || hand > hands)
+            throw new IllegalArgumentException("The game has no hand " + hand);
+        restore(keyframes.get((hand - 1) / KEYFRAME_EVERY));
+        while (state.rounds < hand)
+            step();
+    }
+
+    /**
+     * Play back the next record
+     * @return the type of the record, or -1 once the game is over
+     */
+    public int step() {
+        if (!in.hasRemaining() || in.get(in.position()) == ActionLog.GAME || state.phase == GameState.Phase.GAME_OVER)
+            return -1;
+        type = in.get();
+        seat = -1;
+        value = -1;
+        Player p = null;
+        switch (type) {
+            case ActionLog.HAND:
+                state.rounds++;
+                for (Player o : state.players) {
+                    o.clearCards();
+                    o.folded = false;
+                    o.isAllIn = false;
+                }
+                fullDeck();
+                state.isCalled = false;
+                state.winner = null;
+                state.phase = GameState.Phase.BETTING;
+                return type;
+            case ActionLog.GAME_OVER:
+                state.phase = GameState.Phase.GAME_OVER;
+                return type;
+            case ActionLog.SHIFT:
+                fullDeck();
+                for (int n = ActionLog.readVarint(in); n > 0; n--) {
+                    p = seats[ActionLog.readVarint(in)];
+                    p.hand().clear();
+                    for (int cards = ActionLog.readVarint(in); cards > 0; cards--)
+                        p.addCard(take(ActionLog.readVarint(in)));
+                }
+                return type;
+        }
+
+        seat = ActionLog.readVarint(in);
+        p = seats[seat];
+        switch (type) {
+            case ActionLog.FOLD:
+                p.folded = true;
+                return type;
+            case ActionLog.STAND:
+                state.phase = GameState.Phase.DRAWING;
+                return type;
+            case ActionLog.CALL:
+                state.isCalled = true;
+                state.phase = GameState.Phase.BETTING;
+                return type;
+            case ActionLog.DROP:
+                state.players.remove(p);
+                return type;
+        }
+
+        value = ActionLog.readVarint(in);
+        switch (type) {
+            case ActionLog.ANTE:
+                p.modifyCredits(-value * 2);
+                state.mainPot += value;
+                state.sabaccPot += value;
+                break;
+            case ActionLog.ALL_IN:
+                // Going all in is a bet like any other
+                p.isAllIn = true;
+                p.modifyCredits(-value);
+                state.mainPot += value;
+                state.phase = GameState.Phase.BETTING;
+                break;
+            case ActionLog.BET:
+            case ActionLog.RAISE:
+                p.modifyCredits(-value);
+                state.mainPot += value;
+                state.phase = GameState.Phase.BETTING;
+                break;
+            case ActionLog.DEAL:
+                p.addCard(take(value));
+                break;
+            case ActionLog.DRAW:
+                if (value < Deck.SIZE)
+                    p.addCard(take(value));
+                state.phase = GameState.Phase.DRAWING;
+                break;
+            case ActionLog.FIELD:
+                p.fieldCard(Deck.card(value));
+                break;
+            case ActionLog.BOMB:
+                p.modifyCredits(-value);
+                state.sabaccPot += value;
+                p.folded = true;
+                break;
+            case ActionLog.PAYOUT:
+                p.modifyCredits(value);
+                state.mainPot -= value;
+                state.winner = p;
+                state.phase = GameState.Phase.ROUND_OVER;
+                break;
+            case ActionLog.SABACC:
+                p.modifyCredits(value);
+                state.sabaccPot -= value;
+                break;
+        }
+        return type;
+    }
+
+    private void fullDeck() {
+        deckLow = -1L;
+        deckHigh = (1L << (Deck.SIZE - 64)) - 1;
+    }
+
+    /**
+     * Take a card out of the deck
+     */
+    private Card take(int id) {
+        if (id < 64)
+            deckLow &= ~(1L << id);
+        else
+            deckHigh &= ~(1L << id);
+        return Deck.card(id);
+    }
+
+    private void restore(Keyframe k) {
+        in.position(k.position);
+        state.rounds = k.rounds;
+        state.mainPot = k.mainPot;
+        state.sabaccPot = k.sabaccPot;
+        state.isCalled = false;
+        state.winner = null;
+        state.phase = GameState.Phase.BETTING;
+        deckLow = k.deckLow;
+        deckHigh = k.deckHigh;
+        state.players.clear();
+        for (int i = 0; i < seats.length; i++) {
+            Player p = seats[i];
+            p.modifyCredits(k.credits[i] - p.credits());
+            p.folded = k.folded[i];
+            p.isAllIn = false;
+            p.clearCards();
+            for (byte id : k.hands[i])
+                p.addCard(Deck.card(id));
+            for (byte id : k.fields[i]) {
+                p.addCard(Deck.card(id));
+                p.fieldCard(Deck.card(id));
+            }
+            if (k.inGame[i])
+                state.players.add(p);
+        }
+        type = ActionLog.HAND;
+        seat = -1;
+        value = -1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sabacc.engine;
+
+/**
+ * A source of random numbers for a single table. Each table gets its own stream so that tables
+ * on different threads never contend for one generator, and a game can be played again exactly
+ * from the seed of its stream
+ */
+public interface Rng {
+
+    /**
+     * @return a random int from 0 (inclusive) up to bound (exclusive)
+     */
+    public abstract int nextInt(int bound);
+
+    /**
+     * @return a random float from 0 (inclusive) up to 1 (exclusive)
+     */
+    public abstract float nextFloat();
+
+    /**
+     * Create a new generator with its own independent stream, this advances the stream of this generator
+     */
+    public abstract Rng split();
+
+}
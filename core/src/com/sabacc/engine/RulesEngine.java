@@ -0,0 +1,727 @@
+package com.sabacc.engine;
+
+import com.sabacc.Card;
+import com.sabacc.Deck;
+import com.sabacc.Player;
+
+import java.util.ArrayList;
+
+/**
+ * All of the rules of Sabacc, run against a GameState. Nothing in here depends on libGDX so it
+ * can be driven by the GameScreen or run headless as fast as possible
+ *
+ * Each action moves the game along on its own, the owner only has to call aiAction() whenever the
+ * current player is not human and the phase is BETTING or DRAWING
+ */
+public class RulesEngine {
+    final private GameState state;
+    public GameState state() { return state; }
+
+    // Ranks the hands at the end of each round
+    final private Showdown showdown;
+    public Showdown showdown() { return showdown; }
+
+    // What each player has put into the main pot this round, to split it into side pots at the showdown
+    final private PotLedger pots;
+    public PotLedger pots() { return pots; }
+
+    private GameListener listener;
+    public void setListener(GameListener listener) { this.listener = listener; }
+
+    // Everybody told about each GameEvent, and the events to reuse
+    final private ArrayList<GameEventListener> eventListeners;
+    final private ArrayList<GameEvent> eventPool;
+    public void addEventListener(GameEventListener l) {
+        if (!eventListeners.contains(l))
+            eventListeners.add(l);
+    }
+    public void removeEventListener(GameEventListener l) { eventListeners.remove(l); }
+
+    // A binary record of every action, if anybody wants one. The owner starts each game in it
+    private ActionLog log;
+    public void setLog(ActionLog log) { this.log = log; }
+
+    // Every finished round, if anybody wants them. The owner starts each game in it
+    private HandHistory history;
+    public void setHistory(HandHistory history) { this.history = history; }
+
+    public RulesEngine(GameState state) {
+        this.state = state;
+
+        showdown = new Showdown(this, state);
+        pots = new PotLedger();
+        eventListeners = new ArrayList<GameEventListener>();
+        eventPool = new ArrayList<GameEvent>();
+    }
+
+    /**
+     * Tell every event listener what happened, nothing is done when nobody is listening
+     */
+    void event(GameEvent.Type type, Player p, int value, int other, Card c) {
+        if (eventListeners.isEmpty())
+            return;
+        GameEvent e = eventPool.isEmpty() ? new GameEvent() : eventPool.remove(eventPool.size() - 1);
+        e.set(type, p, value, other, c);
+        for (int i = 0; i < eventListeners.size(); i++)
+            eventListeners.get(i).event(e);
+        eventPool.add(e);
+    }
+    private void event(GameEvent.Type type, Player p, int value) {
+        event(type, p, value, 0, null);
+    }
+    private void event(GameEvent.Type type, Player p) {
+        event(type, p, 0, 0, null);
+    }
+    private void event(GameEvent.Type type) {
+        event(type, null, 0, 0, null);
+    }
+    void record(byte type, Player p, int value) {
+        if (log != null)
+            log.record(type, p, value);
+    }
+    private void record(byte type, Player p) {
+        if (log != null)
+            log.record(type, p);
+    }
+    private void playerUpdated(Player p) {
+        if (listener != null)
+            listener.playerUpdated(p);
+    }
+    private void setPhase(GameState.Phase phase) {
+        state.phase = phase;
+        if (listener != null)
+            listener.phaseChanged(phase);
+    }
+
+    /*
+     * Every AI strategy at the table hears about what happens as it happens, players without a
+     * strategy are human
+     */
+
+    private void strategiesRoundStarted() {
+        for (Player o : state.players)
+            if (o.strategy() != null)
+                o.strategy().roundStarted(state);
+    }
+    private void strategiesBettingRoundStarted() {
+        for (Player o : state.players)
+            if (o.strategy() != null)
+                o.strategy().bettingRoundStarted(state);
+    }
+    private void strategiesPlayerBet(Player p, int amount) {
+        for (Player o : state.players)
+            if (o.strategy() != null)
+                o.strategy().playerBet(state, p, amount);
+    }
+    private void strategiesPlayerFolded(Player p) {
+        for (Player o : state.players)
+            if (o.strategy() != null)
+                o.strategy().playerFolded(state, p);
+    }
+    private void strategiesSabaccShift() {
+        for (Player o : state.players)
+            if (o.strategy() != null)
+                o.strategy().sabaccShift(state);
+    }
+
+    /**
+     * Finish the current players turn, try for a Sabacc Shift and move on to the next player
+     */
+    private void nextPlayer() {
+        sabaccShift();  // Try for a shift after each player's action
+        playerUpdated(state.getCurrentPlayer());
+        state.advancePlayer();
+    }
+
+    /**
+     * Unfold each player, check to make sure each player can afford to ante the next round
+     * If they cannot, they leave the table
+     * @return false if there are not enough players left to start a round and the game is over
+     */
+    public boolean startNewRound() {
+        // Start by refreshing the deck and clearing each players hand
+        event(GameEvent.Type.ROUND_STARTED);
+        event(GameEvent.Type.ANTE, null, state.ante);
+        state.deck.refreshDeck();
+        for (Player p : state.players)
+            p.clearCards();
+        state.untilCall = 4;
+        resetBettingRound();
+        state.winner = null;
+
+        // Trying to fix a crash that happens when a bunch of players bomb out
+        for (int i = 0; i < state.players.size(); i++) {
+            if (state.players.get(i).credits() >= state.ante * 2)
+                continue;
+            Player p = state.players.remove(i);
+            event(GameEvent.Type.DROPPED, p);
+            record(ActionLog.DROP, p);
+            if (listener != null)
+                listener.playerDropped(i, p);
+            i--;
+        }
+
+        if (state.players.size() <= 1) {
+            if (log != null)
+                log.record(ActionLog.GAME_OVER);
+            setPhase(GameState.Phase.GAME_OVER);
+            return false;
+        }
+        state.rounds++;
+        if (log != null)
+            log.record(ActionLog.HAND);
+
+        // For now, automatically ante each player
+        pots.reset(state.players, state.mainPot);
+        for (Player p : state.players) {
+            p.folded = false;
+            p.modifyCredits(-(state.ante*2));
+            pots.add(p, state.ante);
+            record(ActionLog.ANTE, p, state.ante);
+            playerUpdated(p);
+        }
+        state.mainPot += state.ante * state.players.size();
+        state.sabaccPot += state.ante * state.players.size();
+
+        // Notify the game that this is a new round, to deal a hand after the first betting round
+        state.startOfRound = true;
+
+        // Typically 4 pot building rounds before a player can call the hand
+        state.isCalled = false;
+        strategiesRoundStarted();
+
+        // Rounds begin with a preliminary betting round
+        startBettingRound();
+        return true;
+    }
+
+    /**
+     * Start a new game at the same table, seating every player again with the same credits and empty pots
+     * @param seats the players in seat order, including any that dropped out of the last game
+     */
+    public void newGame(ArrayList<Player> seats, int credits) {
+        state.players.clear();
+        for (Player p : seats) {
+            p.modifyCredits(credits - p.credits());
+            p.clearCards();
+            p.folded = false;
+            state.players.add(p);
+        }
+        state.mainPot = 0;
+        state.sabaccPot = 0;
+        state.rounds = 0;
+        state.winner = null;
+        setPhase(GameState.Phase.ROUND_OVER);
+    }
+
+    /**
+     * Deal the starting hand of 2 cards to each player
+     */
+    public void dealStartingHand() {
+        event(GameEvent.Type.DEALING);
+        for (Player p : state.players) {
+            for (int i = 0; i < 2; i++) {
+                Card c = state.deck.drawCard();
+                p.addCard(c);
+                record(ActionLog.DEAL, p, c.id);
+            }
+            playerUpdated(p);
+        }
+    }
+
+    /**
+     * Randomly determines if a Sabacc Shift should happen. A chance after each player makes
+     * a move
+     * Replaces the current deck with a new deck, for each player they replace each card in their
+     * hand with new cards. Cards in their Interference Field are not affected
+     * @return true if a shift happened
+     */
+    public boolean sabaccShift() {
+        if (history != null)
+            history.shiftChance();
+        if (state.rng.nextFloat() > state.shiftChance)
+            return false;
+        event(GameEvent.Type.SHIFT);
+        state.deck.refreshDeck();
+        for (Player p : state.players)
+            p.sabaccShift(state.deck);
+        if (log != null)
+            log.shift(state.players);
+        if (history != null)
+            history.shift();
+        strategiesSabaccShift();
+        return true;
+    }
+
+    /**
+     * Removes the card from the players hand and adds it to their interference field, to
+     * be protected from Sabacc Shifts but know to other players
+     * @param p the player
+     * @param c the card in their hand
+     */
+    public void fieldCard(Player p, Card c) {
+        event(GameEvent.Type.FIELDED, p, 0, 0, c);
+        p.fieldCard(c);
+        record(ActionLog.FIELD, p, c.id);
+    }
+
+    /**
+     * Handle an AI turn for the current player, based on the current phase
+     */
+    public void aiAction() {
+        aiApply(aiDecide());
+    }
+
+    /**
+     * Ask the current player's strategy what to do, without changing the game. This only reads the state,
+     * so it can run on another thread as long as nothing acts on the game until it returns
+     * @return the bet or draw choice of the strategy, see Strategy, or 0 if there is nothing to decide
+     */
+    public int aiDecide() {
+        Player p = state.getCurrentPlayer();
+        if (p.isHuman)
+            return 0;
+        if (state.phase == GameState.Phase.BETTING)
+            return p.isAllIn ? 0 : p.makeBet(state);
+        if (state.phase == GameState.Phase.DRAWING)
+            return p.drawChoice(state);
+        return 0;
+    }
+
+    /**
+     * Carry out a decision from aiDecide for the current player
+     */
+    public void aiApply(int decision) {
+        // The turn may have changed since the action was scheduled
+        if (state.getCurrentPlayer().isHuman)
+            return;
+        if (state.phase == GameState.Phase.BETTING)
+            aiBet(decision);
+        else if (state.phase == GameState.Phase.DRAWING)
+            aiDraw(decision);
+    }
+
+    /*
+     * BETTING
+     */
+
+    /**
+     * Start a betting round, nobody has bet yet and the current bid starts at 0
+     */
+    private void startBettingRound() {
+        // Reset the current bid of the round
+        state.currentBid = 0;
+
+        // Set the start of the main pot
+        state.roundStartPot = state.mainPot;
+
+        // Set each player to have not bet
+        for (Player p : state.players) {
+            p.currentBid = 0;
+            p.hasBet = false;
+        }
+        strategiesBettingRoundStarted();
+        setPhase(GameState.Phase.BETTING);
+    }
+
+    /**
+     * Resets each players total bid for the round to be 0 and reset each players All In Status
+     */
+    private void resetBettingRound() {
+        for (Player p : state.players) {
+            p.roundbid = 0;
+            p.isAllIn = false;
+        }
+    }
+
+    /**
+     * Have the current AI player make the bet their strategy decided on
+     */
+    private void aiBet(int bet) {
+        Player p = state.getCurrentPlayer();
+
+        // Toggle this player to have bet (or called the initial bet of 0)
+        p.hasBet = true;
+
+        if (p.isAllIn) {
+            // A lazy solution, but if this player is all in then dont have them do anything
+            event(GameEvent.Type.STILL_ALL_IN, p);
+        } else {
+            if (bet == -1) {
+                // Fold
+                p.folded = true;
+                event(GameEvent.Type.FOLDED, p);
+                record(ActionLog.FOLD, p);
+                strategiesPlayerFolded(p);
+            } else if (bet == -2) {
+                playerAllIn(p);
+            } else {
+                playerBet(p, bet);
+            }
+        }
+        nextPlayer();
+        tryToEndBetting();
+    }
+
+    /**
+     * Have the player match the current bid, going all in if they cannot afford it
+     * @param p the player to check
+     */
+    public void check(Player p) {
+        p.hasBet = true;
+
+        // If they cannot afford to match, then go all in
+        if (p.currentBid + p.credits() < state.currentBid)
+            playerAllIn(p);
+        // Otherwise, match the current bid
+        else {
+            int c = state.currentBid - p.currentBid;
+            playerBet(p, c);
+        }
+
+        // Then move to the next player
+        nextPlayer();
+        tryToEndBetting();
+    }
+
+    /**
+     * Have the input player raise their current bid by the input value
+     * @param p the player to raise
+     * @param value the value they raise by
+     * @return false if the raise was not allowed, in which case it is still this players turn
+     */
+    public boolean raise(Player p, int value) {
+        if (value > p.credits()) {
+            event(GameEvent.Type.RAISE_OVER_CREDITS, p);
+            return false;
+        } else if (p.currentBid + value < state.currentBid) {
+            event(GameEvent.Type.RAISE_UNDER_BID, p);
+            return false;
+        }
+
+        // If successful, make the bet and move to the next player
+        p.hasBet = true;
+        playerBet(p, value);
+        nextPlayer();
+        tryToEndBetting();
+        return true;
+    }
+
+    /**
+     * Have the input player fold for the rest of the round
+     */
+    public void fold(Player p) {
+        event(GameEvent.Type.FOLDED, p);
+        p.folded = true;
+        record(ActionLog.FOLD, p);
+        strategiesPlayerFolded(p);
+        nextPlayer();
+        tryToEndBetting();
+    }
+
+    /**
+     * Have the input player increase their current bet by the amount
+     * @param p the player to bet
+     * @param amount how much they bet
+     */
+    private void playerBet(Player p, int amount) {
+        if (amount < 0)
+            event(GameEvent.Type.NEGATIVE_BET, p, amount);
+
+        // Increment the players current bid by the amount, then check to see if it was a raise
+        p.currentBid += amount;
+        p.modifyCredits(-amount);
+        p.roundbid += amount;
+        state.mainPot += amount;
+        pots.add(p, amount);
+
+        record(p.currentBid > state.currentBid ? ActionLog.RAISE : ActionLog.BET, p, amount);
+        if (p.currentBid > state.currentBid) {
+            state.currentBid = p.currentBid;
+            event(GameEvent.Type.RAISED, p, amount, state.currentBid, null);
+        } else if (p.currentBid == state.currentBid) {
+            if (p.currentBid == 0)
+                event(GameEvent.Type.CHECKED, p);
+            else
+                event(GameEvent.Type.MATCHED, p, amount, state.currentBid, null);
+        } else
+            event(GameEvent.Type.UNDER_BID, p, p.currentBid, state.currentBid, null);
+        strategiesPlayerBet(p, amount);
+    }
+
+    /**
+     * Handle going all in for the specified player.
+     * @param p the player to go all in
+     */
+    private void playerAllIn(Player p) {
+        // First check to see if the player can just raise or match to all their credits, rather than go all in
+        if (p.credits() + p.currentBid >= state.currentBid) {
+            playerBet(p, p.credits());
+            return;
+        }
+
+        // Start by betting all of this players credits the same way as in playerBet
+        int amount = p.credits();
+        p.currentBid += p.credits();
+        p.roundbid += p.credits();
+        p.hasBet = true;
+        state.mainPot += p.credits();
+        pots.add(p, amount);
+        record(ActionLog.ALL_IN, p, amount);
+
+        // Tell everybody
+        event(GameEvent.Type.ALL_IN, p, p.credits());
+
+        // What they can win is worked out from the pot ledger at the showdown
+        p.isAllIn = true;
+        p.modifyCredits(-p.credits());
+        strategiesPlayerBet(p, amount);
+    }
+
+    /**
+     * Called at the end of every betting action, human or AI to check if the betting round has ended
+     * If it has, move on to the next phase
+     */
+    private void tryToEndBetting() {
+        // If all players (or all players except one) have folded, end the round right away as
+        // nobody is left to bet against
+        if (state.allFolded()) {
+            endRound();
+            return;
+        }
+
+        Player current = state.getCurrentPlayer();
+        if (current.currentBid == state.currentBid && current.hasBet) {
+            // If this is the preliminary betting round, deal starting hands
+            if (state.startOfRound) {
+                state.startOfRound = false;
+                dealStartingHand();
+            }
+
+            // If the game has been called, end the round
+            if (state.isCalled) {
+                endRound();
+                return;
+            }
+
+            // At the end of the betting round is the drawing round
+            startDrawingRound();
+        }
+    }
+
+    /*
+     * DRAWING
+     */
+
+    /**
+     * Set up a new drawing round, making sure all players have not yet gone
+     */
+    private void startDrawingRound() {
+        // Set all players to have not gone yet
+        for (Player p : state.players)
+            p.hasDrawn = false;
+
+        // Decrement how many rounds until a player can call
+        state.untilCall--;
+        setPhase(GameState.Phase.DRAWING);
+    }
+
+    /**
+     * If the hand can be called in the current drawing round
+     */
+    public boolean canCall() {
+        return state.untilCall < 0;
+    }
+
+    /**
+     * Have the current AI player draw, stand or call, as their strategy decided
+     */
+    private void aiDraw(int c) {
+        Player p = state.getCurrentPlayer();
+        p.hasDrawn = true;
+
+        if (c == -1) {
+            call(p);
+            return;
+        } else if (c == 1) {
+            drawCard(p);
+        } else {
+            event(GameEvent.Type.STOOD, p);
+            record(ActionLog.STAND, p);
+        }
+
+        nextPlayer();
+        tryToEndDrawing();
+    }
+
+    /**
+     * Have the input player draw a card and end their turn
+     */
+    public void draw(Player p) {
+        p.hasDrawn = true;
+        drawCard(p);
+        nextPlayer();
+        tryToEndDrawing();
+    }
+
+    /**
+     * Have the input player end their turn without drawing
+     */
+    public void stand(Player p) {
+        p.hasDrawn = true;
+        event(GameEvent.Type.STOOD, p);
+        record(ActionLog.STAND, p);
+        nextPlayer();
+        tryToEndDrawing();
+    }
+
+    /**
+     * Have the input player call the round, which ends after one final betting round
+     */
+    public void call(Player p) {
+        event(GameEvent.Type.CALLED, p);
+        record(ActionLog.CALL, p);
+        state.isCalled = true;
+        startBettingRound();
+    }
+
+    /**
+     * A helper function that has the input player draw a card
+     * @param p player
+     */
+    private void drawCard(Player p) {
+        // @todo Make this more elegant later
+        if (state.deck.isEmpty()) {
+            event(GameEvent.Type.DECK_EMPTY, p);
+            record(ActionLog.DRAW, p, Deck.SIZE);
+            return;
+        }
+        Card c = state.deck.drawCard();
+        p.addCard(c);
+        record(ActionLog.DRAW, p, c.id);
+        event(GameEvent.Type.DREW, p);
+    }
+
+    /**
+     * Called at the end of every drawing action to check if the drawing round has ended
+     * If it has, start another betting round
+     */
+    private void tryToEndDrawing() {
+        if (state.getCurrentPlayer().hasDrawn)
+            startBettingRound();
+    }
+
+    /*
+     * SHOWDOWN
+     */
+
+    /**
+     * End the round and determine the winner. This happens after a final betting round
+     * once the game has been called
+     */
+    private void endRound() {
+        // First, find all the players who bombed out, they will be folded and they pay
+        // credits equal to the main pot into the sabacc pot
+        if (listener != null)
+            listener.handsRevealed();
+        if (history != null)
+            history.showdown(state);
+
+        // A check to account for if only one player is still in the hand, but bombed out
+        if (!state.allFolded()) {
+            for (Player p : state.players) {
+                if (!p.folded) {
+                    if (Showdown.handValue(p) == 0) {
+                        int value = Math.min(state.mainPot, p.credits());
+                        p.folded = true;
+                        p.modifyCredits(-value);
+                        state.sabaccPot += value;
+                        event(GameEvent.Type.BOMBED, p);
+                        record(ActionLog.BOMB, p, value);
+                        if (history != null)
+                            history.bomb(p);
+                    }
+                }
+            }
+        }
+
+        Player winner = null;
+        Player alone = null;
+        int nonfold = 0;
+        for (Player p : state.players)
+            if (!p.folded) {
+                alone = p;
+                nonfold++;
+            }
+
+        if (nonfold == 1) {
+            // Everybody else folded, the one remaining player wins but cannot win on Pure Sabacc (or Bomb Out)
+            winner = alone;
+            showdown.only(winner);
+            int value = payPots();
+            event(GameEvent.Type.WON_ALONE, winner, value);
+            winner.modifyCredits(value);
+            record(ActionLog.PAYOUT, winner, value);
+        } else if (showdown.resolve().isEmpty()) {
+            // Base case, no winners, everybody bombed out or folded
+            event(GameEvent.Type.NO_WINNER);
+        } else {
+            // Otherwise the best hand wins, after any Sudden Demise
+            winner = showdown.ranked().get(0);
+            payWinner(winner, showdown.winningHand());
+        }
+
+        // After allocating credits, wait for the next round to be started
+        state.winner = winner;
+        if (winner != null)
+            playerUpdated(winner);
+        if (history != null)
+            history.hand(state, winner, winner != null ? showdown.winningHand() : 0);
+        setPhase(GameState.Phase.ROUND_OVER);
+    }
+
+    /**
+     * Split the main pot between the ranked players. Side pots won by anybody but the winner are paid
+     * here, anything nobody can win stays in the main pot
+     * @return what the winner won from the main pot, to be paid by the caller
+     */
+    private int payPots() {
+        ArrayList<Player> ranked = showdown.ranked();
+        state.mainPot -= pots.payout(ranked);
+        Player p;
+        for (int r = 1; r < ranked.size(); r++) {
+            if (pots.won(r) == 0)
+                continue;
+            p = ranked.get(r);
+            p.modifyCredits(pots.won(r));
+            record(ActionLog.PAYOUT, p, pots.won(r));
+            event(GameEvent.Type.SIDE_POT, p, pots.won(r));
+            playerUpdated(p);
+        }
+        return pots.won(0);
+    }
+
+    /**
+     * Pay out the main pot to the winner, along with the sabacc pot if they won with a pure sabacc
+     * @param winner the winning player, first in the ranking
+     * @param handValue the hand value they won with, 24 being an idiot's array
+     */
+    private void payWinner(Player winner, int handValue) {
+        // An all in winner only wins the part of the main pot they paid into, side pots go to the next best hands
+        int value = payPots();
+
+        if (handValue >= 23) {
+            // Pure Sabacc or Idiot's Array
+            event(GameEvent.Type.PURE_SABACC, winner, value + state.sabaccPot);
+            winner.modifyCredits(value + state.sabaccPot);
+            record(ActionLog.PAYOUT, winner, value);
+            record(ActionLog.SABACC, winner, state.sabaccPot);
+            state.sabaccPot = 0;
+        } else {
+            // Otherwise, regular hand
+            event(GameEvent.Type.WON, winner, value, handValue, null);
+            winner.modifyCredits(value);
+            record(ActionLog.PAYOUT, winner, value);
+        }
+    }
+}
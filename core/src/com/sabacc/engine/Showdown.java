@@ -0,0 +1,177 @@
+package com.sabacc.engine;
+
+import com.sabacc.Card;
+import com.sabacc.Deck;
+import com.sabacc.Hand;
+import com.sabacc.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Works out who wins at the end of a round. Every player still in is ranked by their hand in one pass over
+ * the table, then ties for the best hand are settled by Sudden Demise, as many times over as it takes
+ *
+ * The ranking and all scratch space is kept between rounds, so a showdown allocates nothing. Used by the
+ * RulesEngine, so the game and the simulation settle rounds the same way
+ */
+public class Showdown {
+    final private RulesEngine engine;
+    final private GameState state;
+
+    // The players who can win, the best hand first
+    final private ArrayList<Player> ranked;
+    public ArrayList<Player> ranked() { return ranked; }
+
+    // Each player's hand value and seat, packed so that sorting them sorts the hands
+    private int[] keys;
+
+    // How many players each level of Sudden Demise is settling, see resolve(). Every level deals at least two
+    // cards, so there can never be more levels than this
+    final private int[] levels = new int[Deck.SIZE];
+
+    // The hand value the round was won with, before any cards dealt by Sudden Demise
+    private int winningHand;
+    public int winningHand() { return winningHand; }
+
+    Showdown(RulesEngine engine, GameState state) {
+        this.engine = engine;
+        this.state = state;
+        ranked = new ArrayList<Player>();
+        keys = new int[8];
+    }
+
+    /**
+     * @return the value of a hand for comparing against others, 24 for an Idiot's Array, or 0 if it has bombed out
+     */
+    public static int handValue(Player p) {
+        return handValue(p.hand(), p.field());
+    }
+
+    /**
+     * The value of a hand along with the Interference Field it was played with, see handValue(Player)
+     */
+    public static int handValue(Hand hand, Hand field) {
+        if (hand.idiotsArray())
+            return 24;
+        int v = Math.abs(hand.value() + field.value());
+        return v > 23 ? 0 : v;
+    }
+
+    /**
+     * Rank every player who has not folded or bombed out, then settle ties for the best hand with Sudden
+     * Demise. Players who bomb out in a Sudden Demise do not pay the penalty, but can not win
+     * @return the ranked players, the best hand first, or empty if nobody can win
+     */
+    public ArrayList<Player> resolve() {
+        ranked.clear();
+        int n = 0;
+        int v;
+        if (keys.length < state.players.size())
+            keys = new int[state.players.size()];
+        for (int i = 0; i < state.players.size(); i++) {
+            Player p = state.players.get(i);
+            if (p.folded || (v = handValue(p)) == 0)
+                continue;
+            // The earlier seat ranks first between equal hands, until Sudden Demise tells them apart
+            keys[n++] = v << 8 | (255 - i);
+        }
+        Arrays.sort(keys, 0, n);
+        for (int k = n - 1; k >= 0; k--)
+            ranked.add(state.players.get(255 - (keys[k] & 0xff)));
+
+        // A tie is settled between the survivors of its Sudden Demise before anybody below it, and if every
+        // survivor bombs out the players below the tie are up. Each level of demise keeps how many players at
+        // the front of the ranking it is settling, and a level above the one being settled keeps how many of
+        // its players were below the tie, for when that tie is settled with nobody left
+        int depth = 0;
+        levels[0] = ranked.size();
+        while (depth >= 0 && !state.deck.isEmpty()) {
+            int competing = levels[depth];
+            if (competing == 0) {
+                // Everybody in this demise bombed out, back to the players below the tie that started it
+                depth--;
+                continue;
+            }
+            if (competing == 1)
+                break;
+            v = handValue(ranked.get(0));
+            int tied = 1;
+            while (tied < competing && handValue(ranked.get(tied)) == v)
+                tied++;
+            if (tied == 1)
+                break;
+
+            int kept = suddenDemise(v, tied);
+            levels[depth] = competing - tied;
+            if (kept > 0)
+                levels[++depth] = kept;
+        }
+
+        // The round is won with the hand the winner had before any cards dealt by Sudden Demise
+        winningHand = 0;
+        for (int k = n - 1; k >= 0 && !ranked.isEmpty(); k--)
+            if (state.players.get(255 - (keys[k] & 0xff)) == ranked.get(0))
+                winningHand = keys[k] >> 8;
+        return ranked;
+    }
+
+    /**
+     * Give the ranking to the only player left in the round, who wins no matter their hand
+     */
+    public void only(Player p) {
+        ranked.clear();
+        ranked.add(p);
+        winningHand = 0;
+    }
+
+    /**
+     * Deal another card to each of the tied players at the front of the ranking. Those who bomb out leave
+     * the ranking, and the rest are sorted again by their new hands
+     * @return how many of the tied players are left
+     */
+    private int suddenDemise(int value, int tied) {
+        engine.event(GameEvent.Type.SUDDEN_DEMISE, null, value, 0, null);
+        int kept = 0;
+        Card c;
+        for (int i = 0; i < tied; i++) {
+            Player p = ranked.get(i);
+            if (state.deck.isEmpty()) {
+                ranked.set(kept++, p);
+                continue;
+            }
+            c = state.deck.drawCard();
+            p.addCard(c);
+            engine.record(ActionLog.DEAL, p, c.id);
+            // A single event for both, to set the entire message on one line to fit on the screen
+            if (handValue(p) == 0)
+                engine.event(GameEvent.Type.DEMISE_BOMBED, p, p.score(), 0, c);
+            else {
+                ranked.set(kept++, p);
+                engine.event(GameEvent.Type.DEMISE_DEALT, p, 0, 0, c);
+            }
+        }
+
+        // Close the gap left by those who bombed out
+        int gone = tied - kept;
+        if (gone > 0) {
+            for (int i = tied; i < ranked.size(); i++)
+                ranked.set(i - gone, ranked.get(i));
+            for (int i = 0; i < gone; i++)
+                ranked.remove(ranked.size() - 1);
+        }
+
+        // Insertion sort the survivors by their new hands, stable so the earlier seat still goes first
+        for (int i = 1; i < kept; i++) {
+            Player p = ranked.get(i);
+            int pv = handValue(p);
+            int j = i - 1;
+            while (j >= 0 && handValue(ranked.get(j)) < pv) {
+                ranked.set(j + 1, ranked.get(j));
+                j--;
+            }
+            ranked.set(j + 1, p);
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sabacc.engine;
+
+/**
+ * The SplitMix64 generator used by java.util.SplittableRandom, which is not available on older
+ * Android versions. Not thread safe, split off a new generator for each thread or table instead
+ */
+public class SplittableRng implements Rng {
+    // The default gamma, the odd integer closest to 2^64 divided by the golden ratio
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    final private long gamma;
+
+    /**
+     * Create a generator that always produces the same stream for the same seed
+     */
+    public SplittableRng(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplittableRng(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * The seed of the index-th stream of a base seed, so that many tables (such as one per simulated
+     * game) can each be recreated from the base seed and their own index
+     */
+    public static long streamSeed(long seed, long index) {
+        return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0)
+            // A power of two, just mask the bits
+            return r & m;
+
+        // Otherwise reject values from the top partial range so that every result is equally likely
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1)
+            ;
+        return r;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (mix32(nextSeed()) >>> 8) * 0x1.0p-24f;
+    }
+
+    @Override
+    public Rng split() {
+        return new SplittableRng(nextLong(), mixGamma(nextSeed()));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /**
+     * Make a gamma for a new stream, it has to be odd and should have enough bit transitions to mix well
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
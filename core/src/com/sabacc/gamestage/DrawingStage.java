@@ -22,16 +22,10 @@ public class DrawingStage implements GameStage {
     private Stage callStage;
     private Stage currentStage;
 
-    // How many drawing rounds are run until a player can call the hand
-    private int untilCall;
-    public void resetUntilCall() { untilCall = 4; }
-
     public DrawingStage(final GameScreen main, final FitViewport viewport) {
         this.main = main;
         this.viewport = viewport;
 
-        untilCall = 4;
-
         // Set up the main button style for all the buttons
         TextButton.TextButtonStyle buttonStyle = new TextButton.TextButtonStyle();
         buttonStyle.font = main.game.font32;
@@ -43,80 +37,24 @@ public class DrawingStage implements GameStage {
     }
 
     /**
-     * A helper function that has the input player draw a card
-     * @param p player
-     */
-    private void drawCard(Player p) {
-        // @todo Make this more elegant later
-        if (main.deck.isEmpty())
-            main.addMessage("ERROR: " + p.name() + " tries to draw but the deck is empty");
-        p.addCard(main.deck.drawCard());
-        main.addMessage(p.name() + " draws a card");
-    }
-
-    /**
-     * Set up a new drawing round, swapping the stage and making sure all players have not yet gone
+     * Set up a new drawing round, swapping the stage depending on if the hand can be called yet
      */
     @Override
     public void start() {
         // Determine which stage should be used
-        if (untilCall > 0)
-            currentStage = buildStage;
-        else
+        if (main.engine.canCall())
             currentStage = callStage;
+        else
+            currentStage = buildStage;
         main.setStageInput(currentStage);
-
-        // Decrement how many rounds until a player can call
-        untilCall--;
-
-        // Set all players to have not gone yet
-        for (Player p : main.players)
-            p.hasDrawn = false;
     }
 
     /**
-     * Run the next few AI players until the current player is a human player, or until the current
-     * player has already already gone, in which case move to another betting round
+     * Run the next AI player, the engine will move to another betting round once everybody has gone
      */
     @Override
-    public void aiAction() {
-        Player p = main.getCurrentPlayer();
-
-        // p should always be an ai, fix this later
-        if (!p.isHuman) {
-            p.hasDrawn = true;
-
-            // Get the players choice based on their ai
-            int c = p.drawChoice(untilCall);
-            if (c == -1) {
-                // Call
-                main.addMessage(p.name() + " calls the round");
-                main.isCalled = true;
-                main.setGameStage(main.bettingStage);
-                return;
-            } else if (c == 0) {
-                // Stand
-                main.addMessage(p.name() + " stands");
-            } else if (c == 1) {
-                // Draw
-                drawCard(p);
-            }
-
-            main.nextPlayer();
-        }
-
-        // After an AI action, try to end the round
-        tryToEndRound();
-    }
-
-    /**
-     * Called at the end of every player action, human or AI to check if the round has ended
-     * If the round has ended, change the gamestage in main
-     */
-    private void tryToEndRound() {
-        if (main.getCurrentPlayer().hasDrawn) {
-            main.setGameStage(main.bettingStage);
-        }
+    public void aiAction(int decision) {
+        main.engine.aiApply(decision);
     }
 
     @Override
@@ -143,12 +81,8 @@ public class DrawingStage implements GameStage {
             @Override
             public void clicked(InputEvent e, float x, float y) {
                 Player p = main.getCurrentPlayer();
-                if (p.isHuman) {
-                    p.hasDrawn = true;
-                    drawCard(p);
-                    main.nextPlayer();
-                    tryToEndRound();
-                }
+                if (p.isHuman)
+                    main.engine.draw(p);
             }
         });
 
@@ -161,12 +95,8 @@ public class DrawingStage implements GameStage {
             @Override
             public void clicked(InputEvent e, float x, float y) {
                 Player p = main.getCurrentPlayer();
-                if (p.isHuman) {
-                    p.hasDrawn = true;
-                    main.addMessage(p.name() + " stands");
-                    main.nextPlayer();
-                    tryToEndRound();
-                }
+                if (p.isHuman)
+                    main.engine.stand(p);
             }
         });
 
@@ -199,12 +129,8 @@ public class DrawingStage implements GameStage {
             @Override
             public void clicked(InputEvent e, float x, float y) {
                 Player p = main.getCurrentPlayer();
-                if (p.isHuman) {
-                    p.hasDrawn = true;
-                    drawCard(p);
-                    main.nextPlayer();
-                    tryToEndRound();
-                }
+                if (p.isHuman)
+                    main.engine.draw(p);
             }
         });
 
@@ -217,12 +143,8 @@ public class DrawingStage implements GameStage {
             @Override
             public void clicked(InputEvent e, float x, float y) {
                 Player p = main.getCurrentPlayer();
-                if (p.isHuman) {
-                    p.hasDrawn = true;
-                    main.addMessage(p.name() + " stands");
-                    main.nextPlayer();
-                    tryToEndRound();
-                }
+                if (p.isHuman)
+                    main.engine.stand(p);
             }
         });
 
@@ -235,11 +157,8 @@ public class DrawingStage implements GameStage {
             @Override
             public void clicked(InputEvent e, float x, float y) {
                 Player p = main.getCurrentPlayer();
-                if (p.isHuman) {
-                    main.addMessage(p.name() + " calls the round");
-                    main.setGameStage(main.bettingStage);
-                    main.isCalled = true;
-                }
+                if (p.isHuman)
+                    main.engine.call(p);
             }
         });
 
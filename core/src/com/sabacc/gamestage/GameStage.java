@@ -17,10 +17,11 @@ public interface GameStage {
     public abstract void start();
 
     /**
-     * Is triggered when the current screen is rendered with nextEvent set to true
-     * This allows us to time events to give some delay between ai actions
+     * Carry out the decision of the current AI player, called on the render thread once the AiWorker
+     * has decided it and the delay between AI actions has passed
+     * @param decision what the player's strategy decided, from RulesEngine.aiDecide
      */
-    public abstract void aiAction();
+    public abstract void aiAction(int decision);
 
     /**
      * Call this when we are done with this GameStage
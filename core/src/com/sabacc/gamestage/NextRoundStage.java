@@ -51,7 +51,7 @@ public class NextRoundStage implements GameStage {
     }
 
     @Override
-    public void aiAction() {
+    public void aiAction(int decision) {
 
     }
 
@@ -7,6 +7,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton.TextButtonStyle;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Null;
+import com.badlogic.gdx.utils.StringBuilder;
 import com.sabacc.Player;
 
 /**
@@ -21,6 +22,7 @@ public class PlayerButton extends Button {
     public Player player() { return player; }
     final private Label nameLabel;    // Left aligned name
     final private Label statLabel;    // Right aligned stats, credits, cards in hand, hand value
+    final private StringBuilder stats;  // Reused to write the stats into, so updating them makes no garbage
 
 
     public PlayerButton(Player player, TextButtonStyle style) {
@@ -36,6 +38,7 @@ public class PlayerButton extends Button {
         statLabel = new Label("C:" + player.credits() + " H:" + player.numCards() + " S:?? ", new Label.LabelStyle(style.font, style.fontColor));
         statLabel.setAlignment(Align.right);
         add(statLabel).expand().fill();
+        stats = new StringBuilder();
     }
 
     public void setStyle (ButtonStyle style) {
@@ -68,21 +71,22 @@ public class PlayerButton extends Button {
      * The main important method, this should be called whenever values change, this updates the player text if needed
      */
     public void update() {
-        String s = "C:" + player.credits();
+        stats.setLength(0);
+        stats.append("C:").append(player.credits());
         if (player.folded)
-            s += " Folded! ";
+            stats.append(" Folded! ");
         else {
-            s += " H:" + player.numCards();
+            stats.append(" H:").append(player.numCards());
             if (player.displayHand)
-                s += " S:" + player.score() + " ";
+                stats.append(" S:").append(player.score()).append(' ');
             else {
                 if (player.numField() > 0)
-                    s += " S:?" + player.fieldValue() + " ";
+                    stats.append(" S:?").append(player.fieldValue()).append(' ');
                 else
-                    s += " S:?? ";
+                    stats.append(" S:?? ");
             }
         }
-        statLabel.setText(s);   // This checks if the new string is different before setting it
+        statLabel.setText(stats);   // This checks if the new text is different before laying it out again
     }
 
     /** Copied from TextButton */
@@ -2,6 +2,7 @@ package com.sabacc.screens;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.Screen;
@@ -15,72 +16,157 @@ import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Queue;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.sabacc.AiWorker;
 import com.sabacc.Card;
 import com.sabacc.Deck;
+import com.sabacc.HudText;
+import com.sabacc.MessageLog;
+import com.sabacc.GameLoop;
 import com.sabacc.Player;
 import com.sabacc.Sabacc;
 import com.sabacc.SabaccTimer;
+import com.sabacc.ai.CfrStrategy;
+import com.sabacc.ai.IsmctsSearch;
+import com.sabacc.ai.IsmctsStrategy;
+import com.sabacc.ai.PressureStrategy;
+import com.sabacc.engine.ActionLog;
+import com.sabacc.engine.GameEvent;
+import com.sabacc.engine.GameEventListener;
+import com.sabacc.engine.GameListener;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.HandHistory;
+import com.sabacc.engine.HandStore;
+import com.sabacc.engine.RulesEngine;
+import com.sabacc.engine.Rng;
+import com.sabacc.engine.SplittableRng;
 import com.sabacc.gamestage.*;
 
-public class GameScreen implements Screen {
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+public class GameScreen implements Screen, GameListener, GameEventListener {
     final public Sabacc game;
     final private OrthographicCamera camera;
 
+    // The state of the game and the rules that are run against it, this screen only displays it
+    final public GameState state;
+    final public RulesEngine engine;
+
     // An array of players in the game, with a reference to the main player
-    final public Array<Player> players;
+    final public ArrayList<Player> players;
     final public Player player;
 
-    // A couple variables set at the start of the game
-    public int ante;
-
-    // The index of the current player and a small helper function to increment it to
-    // the next active player
-    private int currentPlayer;
-    public Player getCurrentPlayer() {
-        // Double check, this is a bit lazy, fix it later
-        while (currentPlayer >= players.size)
-            currentPlayer = (currentPlayer + 1) % players.size;
-        return players.get(currentPlayer);
-    }
-    public void nextPlayer() {
-        sabaccShift();  // Try for a shift after each player's action
-        players.get(currentPlayer).updateButton(); // Update this players button
-        currentPlayer = (currentPlayer + 1) % players.size;
-        while (players.get(currentPlayer).folded)
-            currentPlayer = (currentPlayer + 1) % players.size;
-    }
+    // Every player who sat down at the table, in seat order, to start the next game with
+    final private ArrayList<Player> seats;
+    final private int startingCredits;
+    public Player getCurrentPlayer() { return state.getCurrentPlayer(); }
 
     // The game deck
     final public Deck deck;
 
-    // The array of past messages
-    final private Queue<String> messages;
+    // The seed of this table, and every action played at it written to a binary log
+    final private long seed;
+    private FileChannel logChannel;
+    private ActionLog log;
+
+    // Every round finished at this table, added to the hand history in local storage
+    private HandStore store;
+    private HandHistory history;
+
+    // The search thread of the ISMCTS opponent, it gets as long as an AI turn lasts to search
+    // Null when spectating, as a search takes far too long for hands to be played quickly
+    final private IsmctsSearch ismcts;
+
+    // The pots, the player's credits and the value of their hand, only laid out again when they change
+    final private HudText mainPotText;
+    final private HudText sabaccPotText;
+    final private HudText creditsText;
+    final private HudText valueText;
+
+    // The latest messages, only as many as are shown
+    final private MessageLog messages;
     public void addMessage(String message) {
-        System.out.println(message);
-        messages.addFirst(message);
+        messages.add(message);
+        loop.changed();
     }
 
-    // The two pots
-    public int mainPot;
-    public int sabaccPot;
+    // The timer used to time double taps
+    final public SabaccTimer timer;
 
-    // If this is the start of the round, before the opening hands have been dealt
-    // To handle preliminary betting before the opening hands
-    public boolean startOfRound;
+    // Runs AI turns and anything else that happens on its own from timed events, so the game moves along
+    // without continuous rendering
+    final private GameLoop loop;
 
-    // If the round has been called
-    public boolean isCalled;
+    // Decides AI turns off the render thread, with a delay between ai actions
+    final private AiWorker ai;
 
-    // The timer used to add a delay between ai actions
-    final public SabaccTimer timer;
+    // Plays the rest of the AI turns at once, up to the next human decision or the end of the round
+    private TextButton fastForwardButton;
+
+    /**
+     * How fast a table with no human seat is played. Hands are either watched turn by turn, or played
+     * out of sight in batches with only the last hand of each batch shown
+     */
+    private enum Speed {
+        REAL_TIME("Real Time", 1, 3, 0),
+        FAST("Fast", 0, 0.5f, 0),
+        EVERY_10("Every 10 Hands", 0, 0, 10),
+        EVERY_100("Every 100 Hands", 0, 0, 100),
+        EVERY_1000("Every 1000 Hands", 0, 0, 1000);
+
+        final String label;
+        final float turnDelay;      // How many AI turn lengths each turn takes when watching
+        final float roundPause;     // Seconds between rounds when watching, to see how it ended
+        final int hands;            // How many hands are played for each one shown, or 0 to watch every turn
+
+        Speed(String label, float turnDelay, float roundPause, int hands) {
+            this.label = label;
+            this.turnDelay = turnDelay;
+            this.roundPause = roundPause;
+            this.hands = hands;
+        }
+    }
+
+    // Where the hand log is kept in local storage, when it is turned on. Once it is bigger than the limit it is
+    // moved aside when a table opens it, replacing the last one moved aside, so it stays around twice the limit
+    private static final String LOG_FILE = "hands.slog";
+    private static final String OLD_LOG_FILE = "hands.old.slog";
+    private static final long LOG_LIMIT = 4 * 1024 * 1024;
+    private static final String HISTORY_DIR = "history";
+    // Playouts for each tree search move while fast forwarding, well under a millisecond each
+    private static final int FAST_PLAYOUTS = 200;
+    private static final String OLD_HISTORY_DIR = "history.old";
+    // One full segment of the hand history
+    private static final long HISTORY_LIMIT = 64 * 1024 * 1024;
+
+    // How long hands are played out of sight before handing the render thread back, in nanoseconds,
+    // about a frame so that input is never held up for long
+    private static final long BATCH_SLICE = 16000000L;
+
+    // When spectating every seat is an AI player and the main player is only followed, games start
+    // again as soon as they are over so strategies can be watched or left running for as long as needed
+    final private boolean spectate;
+    private Speed speed = Speed.REAL_TIME;
+    private TextButton speedButton;
+    private boolean nextHandQueued;
+    private boolean batching;
+    final private Runnable batch;
+    private int hiddenHands;    // Hands played out of sight since the last one shown
+
+    // Games and hands played while spectating, and how many hands have been played since the speed was set
+    private int games;
+    private long hands;
+    private long speedHands;
+    private long speedSince;
 
     // The currently selected card, defaults to null
     private Card selected;
     public Card doubleTap;      // The current card the player can double tap, if tapped again within a time frame it will
                                 // place the card into the interference field, otherwise gets set back to null
+    private Card fieldLater;    // A card double tapped while an AI turn was being decided, fielded once it is back
     final private int smallCardHeight;
     final private int smallCardWidth;
     final private int smallCardNum;     // how many small cards fit on the screen per row at once
@@ -96,6 +182,7 @@ public class GameScreen implements Screen {
     final public InputMultiplexer input;
     private Stage baseStage;
     private Array<PlayerButton> playerButtons;
+    private Array<PlayerButton> seatButtons;     // Every player's button, even once they have dropped
     final private Vector3 inputTouch;
 
     // A set of gamestages that are swapped between
@@ -147,18 +234,50 @@ public class GameScreen implements Screen {
 
     public GameScreen(final Sabacc game, Skin uiSkin, OrthographicCamera camera, FitViewport viewport,
                       int numOfOpponents, int ante, int startingCredits) {
+        this(game, uiSkin, camera, viewport, numOfOpponents, ante, startingCredits, false);
+    }
+
+    /**
+     * @param spectate if every seat is played by the AI, with the main player's seat followed on screen
+     */
+    public GameScreen(final Sabacc game, Skin uiSkin, OrthographicCamera camera, FitViewport viewport,
+                      int numOfOpponents, int ante, int startingCredits, boolean spectate) {
         // @todo clean up this ugly constructor
 
         // Set up some preliminary variables that are needed
         this.game = game;
-        deck = new Deck();
+        // Every table gets its own random stream, log the seed so that a game can be played again
+        seed = System.currentTimeMillis() ^ System.nanoTime();
+        Gdx.app.log("GameScreen", "Table seed: " + seed);
+        state = new GameState(new Deck(new SplittableRng(seed)), ante, game.shiftChance);
+        engine = new RulesEngine(state);
+        deck = state.deck;
+        players = state.players;
         this.camera = camera;
-        messages = new Queue<String>();
+        messages = new MessageLog(game.msgFont, game.maxMessages);
+        mainPotText = new HudText(game.font24, "Main Pot: ");
+        sabaccPotText = new HudText(game.font24, "Sabacc Pot: ");
+        creditsText = new HudText(game.font24, "Credits: ");
+        valueText = new HudText(game.font24, "Value: ");
         timer = new SabaccTimer(this);
+        loop = new GameLoop(new Runnable() {
+            @Override
+            public void run() {
+                nextTurn();
+            }
+        });
+        ai = new AiWorker(this, loop);
+        this.spectate = spectate;
+        this.startingCredits = startingCredits;
+        batch = new Runnable() {
+            @Override
+            public void run() {
+                playBatch();
+            }
+        };
         this.uiSkin = uiSkin;
         noButton = uiSkin.getDrawable("button1-up");
         inputTouch = new Vector3();
-        this.ante = ante;
 
         // Initialize where each screen area exists
         // @todo make rectangles dynamic so the screen can be resized if needed
@@ -185,15 +304,33 @@ public class GameScreen implements Screen {
         smallCardNum = 600 / smallCardWidth;
 
         // Set up all players
-        players = new Array<Player>();
-        player = new Player(true, "Urist", startingCredits);
+        player = new Player(!spectate, "Urist", startingCredits);
         players.add(player);
+        // Each opponent gets a different temperament, taking turns between aggressive, balanced and cautious,
+        // except the last opponent who plans every move with a tree search, and the one before who bets
+        // from the trained CFR policy when there is one
+        // A spectated table leaves out the tree search, and the followed player bets from the policy
+        // Every seat splits its own stream off a root kept apart from the deck, so the AI never changes the shuffles
         Player p;
+        PressureStrategy.Type[] types = PressureStrategy.Type.values();
+        Rng seating = new SplittableRng(SplittableRng.streamSeed(seed, -1));
+        Rng own = seating.split();
+        if (spectate)
+            player.setStrategy(game.policy != null ? new CfrStrategy(game.policy, own)
+                    : new PressureStrategy(player, PressureStrategy.Type.BALANCED));
+        ismcts = spectate ? null : new IsmctsSearch(game.aiTurnLength, 0);
         for (int i = 0; i < numOfOpponents; i++) {
             p = new Player(false, "Opponent " + i, startingCredits);
-            p.setBidRange(0.2f, 0.6f);
+            own = seating.split();
+            if (i == numOfOpponents - 1 && !spectate)
+                p.setStrategy(new IsmctsStrategy(ismcts, own));
+            else if (i == numOfOpponents - 2 && game.policy != null)
+                p.setStrategy(new CfrStrategy(game.policy, own));
+            else
+                p.setStrategy(new PressureStrategy(p, types[i % types.length]));
             players.add(p);
         }
+        seats = new ArrayList<Player>(players);
 
         // Initialize all game stages
         drawingStage = new DrawingStage(this, viewport);
@@ -203,31 +340,136 @@ public class GameScreen implements Screen {
         // Initializes the base input stage to handle hand actions
         input = new InputMultiplexer();
         initializeBaseInput();
+        engine.setListener(this);
+        engine.addEventListener(this);
+        openLog();
 
         // Start the game
         displayPlayerHands();
         setGameStage(nextRoundStage);
+        if (spectate) {
+            speedSince = System.nanoTime();
+            loop.changed();
+        }
     }
 
     public void displayPlayerHands() {
+        PlayerButton b;
         for (Player p : players) {
             p.displayHand = true;
-            if (!p.folded && game.autoDisplayAndHide && p.button != null)
-                p.button.setChecked(true);
-            p.updateButton();
+            b = button(p);
+            if (b == null)
+                continue;
+            if (!p.folded && game.autoDisplayAndHide)
+                b.setChecked(true);
+            b.update();
         }
         updateButtonPositions();
     }
     public void hidePlayerHands() {
+        PlayerButton b;
         for (Player p : players) {
             p.displayHand = false;
-            if (game.autoDisplayAndHide && p.button != null)
-                p.button.setChecked(false);
-            p.updateButton();
+            b = button(p);
+            if (b == null)
+                continue;
+            if (game.autoDisplayAndHide)
+                b.setChecked(false);
+            b.update();
+        }
+        updateButtonPositions();
+    }
+
+    /**
+     * Find the button belonging to a player
+     * @return the button, or null if the player does not have one
+     */
+    private PlayerButton button(Player p) {
+        for (PlayerButton b : seatButtons)
+            if (b != null && b.player() == p)
+                return b;
+        return null;
+    }
+
+    /**
+     * Match the player buttons to the players still in the game, after players have come and gone without
+     * the screen hearing about it
+     */
+    private void syncButtons() {
+        for (PlayerButton b : seatButtons)
+            if (b != null)
+                b.setVisible(false);
+        playerButtons.clear();
+        PlayerButton b;
+        for (Player p : players) {
+            b = button(p);
+            if (b != null) {
+                b.setVisible(true);
+                b.update();
+            }
+            playerButtons.add(b);
         }
         updateButtonPositions();
     }
 
+    @Override
+    public void event(GameEvent e) {
+        messages.add(e);
+        loop.changed();
+    }
+
+    @Override
+    public void playerUpdated(Player p) {
+        PlayerButton b = button(p);
+        if (b != null)
+            b.update();
+        loop.changed();
+    }
+
+    @Override
+    public void playerDropped(int index, Player p) {
+        // Remove the player's associated button
+        if (playerButtons.get(index) != null)
+            playerButtons.get(index).setVisible(false);
+        playerButtons.removeIndex(index);
+        updateButtonPositions();
+    }
+
+    @Override
+    public void handsRevealed() {
+        displayPlayerHands();
+    }
+
+    @Override
+    public void phaseChanged(GameState.Phase phase) {
+        loop.changed();
+        switch (phase) {
+            case BETTING:
+                setGameStage(bettingStage);
+                break;
+            case DRAWING:
+                setGameStage(drawingStage);
+                break;
+            case ROUND_OVER:
+                ai.cancel();
+                setGameStage(nextRoundStage);
+                break;
+            case GAME_OVER:
+                // A spectated table starts a new game instead, once the end of this one has been seen
+                if (spectate) {
+                    addMessage(players.size() == 1 ? players.get(0).name() + " wins the game!" : "Nobody wins the game");
+                    break;
+                }
+                // @todo have the button change to End Game, rather than Start Next Round when the game is over
+                closeLog();
+                ai.dispose();
+                loop.dispose();
+                ismcts.dispose();
+                game.setScreen(new GameOverScreen(game, uiSkin, camera, viewport, players.size() == 1 ? players.get(0) : null));
+                break;
+        }
+    }
+
     @Override
     public void show() {
 
@@ -257,30 +499,321 @@ public class GameScreen implements Screen {
 
         // Write all game messages at the top of the screen
         uiLine.draw(game.batch, 0, messageRect.y, 600, 4);
-        for (int i = 0; i < Math.min(game.maxMessages, messages.size); i++)
-            game.msgFont.draw(game.batch, messages.get(i), 16, messageRect.y + i*20 + 26);
+        messages.draw(game.batch, 16, messageRect.y + 26, 20);
 
         // For now, just write the pot values at the top of the screen
         uiLine.draw(game.batch, 0, menuRect.y - 4, 600, 4);
-        game.font24.draw(game.batch, "Main Pot: " + mainPot, 16, potRect.y + 34);
-        game.font24.draw(game.batch, "Sabacc Pot: " + sabaccPot, 272, potRect.y + 34);
+        mainPotText.draw(game.batch, state.mainPot, 16, potRect.y + 34);
+        sabaccPotText.draw(game.batch, state.sabaccPot, 272, potRect.y + 34);
 
         // Write how many credits the player currently has next to the menu button
         creditsBox.draw(game.batch, 0, menuRect.y, 400, menuRect.height);
-        game.font24.draw(game.batch, "Credits: " + player.credits(), 80, menuRect.y + 48);
+        creditsText.draw(game.batch, player.credits(), 80, menuRect.y + 48);
 
-        // Show the current stage on top of everything when it is the players turn
+        // Show the current stage on top of everything when it is the players turn, otherwise the base stage
+        // has already drawn the fast forward button, or the speed button when spectating
         // @todo this is a bit lazy to check the current stage here
-        if (getCurrentPlayer().isHuman || currentStage == nextRoundStage)
-            currentStage.show();
-        else
-            noButton.draw(game.batch, 0,0,buttonRect.width,buttonRect.height);
+        if (!spectate) {
+            if (getCurrentPlayer().isHuman || currentStage == nextRoundStage)
+                currentStage.show();
+            else if (!fastForwardButton.isVisible())
+                noButton.draw(game.batch, 0,0,buttonRect.width,buttonRect.height);
+        }
         game.batch.end();
+    }
+
+    /**
+     * Start deciding the next ai turn if it is an ai player's turn, it is carried out after a short delay.
+     * With nothing the player can do until the next round, the rest of the round is fast forwarded instead
+     */
+    private void nextTurn() {
+        if (spectate) {
+            watch();
+            return;
+        }
+        if (fieldLater != null && !ai.busy())
+            fieldWaiting();
+        boolean playing = state.phase == GameState.Phase.BETTING || state.phase == GameState.Phase.DRAWING;
+        boolean aiTurn = playing && !getCurrentPlayer().isHuman;
+        if (!aiTurn) {
+            fastForwardButton.setVisible(false);
+            return;
+        }
+
+        // Nothing the player can do until the next round, so there is no need to watch
+        if (game.autoFastForward && (player.folded || player.isAllIn)) {
+            fastForward();
+            return;
+        }
+        fastForwardButton.setVisible(true);
+        if (!ai.busy())
+            ai.start(game.aiTurnLength);
+    }
+
+    /**
+     * Put a card from the player's hand into their Interference Field. While the AI worker is deciding a turn
+     * it is reading every hand and field, so the card waits until the decision is back
+     */
+    private void fieldCard(Card c) {
+        if (ai.busy()) {
+            fieldLater = c;
+            return;
+        }
+        engine.fieldCard(player, c);
+    }
+
+    /**
+     * Field the card the player picked while the AI worker was busy, if it is still in their hand
+     */
+    private void fieldWaiting() {
+        Card c = fieldLater;
+        fieldLater = null;
+        boolean playing = state.phase == GameState.Phase.BETTING || state.phase == GameState.Phase.DRAWING;
+        if (playing && !player.folded && player.hand().contains(c.id))
+            engine.fieldCard(player, c);
+    }
+
+    /**
+     * Keep a spectated table going. Watching, each turn is started on the AI worker and the next round
+     * starts after a short pause. Otherwise, hands are played in batches from the loop once the turn in
+     * progress is over
+     */
+    private void watch() {
+        if (batching)
+            return;
+        if (speed.hands > 0) {
+            if (!ai.busy()) {
+                batching = true;
+                loop.schedule(0, batch);
+            }
+            return;
+        }
+
+        if (state.phase == GameState.Phase.ROUND_OVER || state.phase == GameState.Phase.GAME_OVER) {
+            if (nextHandQueued)
+                return;
+            nextHandQueued = true;
+            loop.schedule(speed.roundPause, new Runnable() {
+                @Override
+                public void run() {
+                    nextHandQueued = false;
+                    if (batching)
+                        return;
+                    if (state.phase == GameState.Phase.GAME_OVER) {
+                        newGame();
+                        syncButtons();
+                    }
+                    if (state.phase == GameState.Phase.ROUND_OVER) {
+                        startNewRound();
+                        if (state.phase != GameState.Phase.GAME_OVER)
+                            hands++;
+                    }
+                }
+            });
+        } else if (!ai.busy())
+            ai.start(game.aiTurnLength * speed.turnDelay);
+    }
+
+    /**
+     * Play hands out of sight for about a frame, or until it is time to show one. The shown hand is played
+     * with the screen listening so its messages and hands can be seen, then the loop draws it and comes
+     * back for the next batch
+     */
+    private void playBatch() {
+        if (speed.hands == 0) {
+            // Back to watching, once the screen has caught up with the hands played out of sight
+            batching = false;
+            syncButtons();
+            loop.changed();
+            return;
+        }
+
+        // Hands played out of sight are not logged, thousands of them a second would fill local storage and
+        // write to it on this thread. The log and history are closed for good rather than left with gaps
+        // that could not be replayed
+        if (log != null || history != null)
+            closeLog();
+
+        long end = System.nanoTime() + BATCH_SLICE;
+        engine.setListener(null);
+        engine.removeEventListener(this);
+        while (hiddenHands < speed.hands - 1 && System.nanoTime() < end) {
+            playHand(false);
+            hiddenHands++;
+        }
+        engine.setListener(this);
+        engine.addEventListener(this);
+
+        if (hiddenHands >= speed.hands - 1) {
+            hiddenHands = 0;
+            syncButtons();
+            playHand(true);
+            syncButtons();
+            float seconds = (System.nanoTime() - speedSince) / 1e9f;
+            addMessage(String.format("Game %d, hand %d, %.0f hands a second", games + 1, hands,
+                    seconds > 0 ? speedHands / seconds : 0));
+        }
+        loop.schedule(0, batch);
+    }
+
+    /**
+     * Play one hand from start to end, or the rest of the hand in progress, starting a new game first if
+     * the last one is over
+     * @param shown if the hand is going to be seen, to clear the messages and hands of the last one
+     */
+    private void playHand(boolean shown) {
+        if (state.phase == GameState.Phase.ROUND_OVER) {
+            if (shown)
+                startNewRound();
+            else
+                engine.startNewRound();
+        }
+        if (state.phase == GameState.Phase.GAME_OVER) {
+            newGame();
+            if (shown)
+                startNewRound();
+            else
+                engine.startNewRound();
+        }
+        while (state.phase == GameState.Phase.BETTING || state.phase == GameState.Phase.DRAWING)
+            engine.aiAction();
+        hands++;
+        speedHands++;
+    }
+
+    /**
+     * Sit everybody back down for another game on a spectated table
+     */
+    private void newGame() {
+        games++;
+        engine.newGame(seats, startingCredits);
+        try {
+            if (log != null)
+                log.endGame();
+            if (history != null)
+                history.endGame();
+        } catch (IOException e) {
+            logFailed(e);
+        }
+        if (log != null)
+            log.game(seed, state);
+        if (history != null)
+            history.game(seed, state);
+    }
+
+    /**
+     * Start writing every action at this table to the hand log in local storage, and every finished round
+     * to the hand history, if logging is turned on in the settings
+     */
+    private void openLog() {
+        if (!game.logHands)
+            return;
+        try {
+            FileHandle file = Gdx.files.local(LOG_FILE);
+            if (file.length() > LOG_LIMIT)
+                file.moveTo(Gdx.files.local(OLD_LOG_FILE));
+            logChannel = ActionLog.open(file.file());
+            log = new ActionLog(logChannel);
+            engine.setLog(log);
+            log.game(seed, state);
+        } catch (IOException e) {
+            Gdx.app.error("GameScreen", "Could not open the hand log", e);
+        }
+        try {
+            FileHandle dir = Gdx.files.local(HISTORY_DIR);
+            long size = 0;
+            for (FileHandle f : dir.list())
+                size += f.length();
+            if (size > HISTORY_LIMIT) {
+                Gdx.files.local(OLD_HISTORY_DIR).deleteDirectory();
+                dir.moveTo(Gdx.files.local(OLD_HISTORY_DIR));
+            }
+            store = new HandStore(dir.file());
+            history = new HandHistory(store);
+            engine.setHistory(history);
+            history.game(seed, state);
+        } catch (IOException e) {
+            Gdx.app.error("GameScreen", "Could not open the hand history", e);
+        }
+    }
+
+    /**
+     * Write out what has been logged so far, as the app may not come back from being paused
+     */
+    private void flushLog() {
+        try {
+            if (log != null)
+                log.flush();
+            if (history != null)
+                history.flush();
+        } catch (IOException e) {
+            logFailed(e);
+        }
+    }
+
+    private void closeLog() {
+        flushLog();
+        try {
+            if (logChannel != null)
+                logChannel.close();
+            if (store != null)
+                store.close();
+        } catch (IOException e) {
+            logFailed(e);
+        }
+        engine.setLog(null);
+        engine.setHistory(null);
+        log = null;
+        logChannel = null;
+        history = null;
+        store = null;
+    }
+
+    /**
+     * Give up on the log and the hand history after either could not be written, the game carries on
+     * without them
+     */
+    private void logFailed(IOException e) {
+        Gdx.app.error("GameScreen", "Could not write the hand log", e);
+        engine.setLog(null);
+        engine.setHistory(null);
+        log = null;
+        history = null;
+    }
+
+    /**
+     * Move on to the next speed, hands played at this speed are counted from now
+     */
+    private void changeSpeed() {
+        speed = Speed.values()[(speed.ordinal() + 1) % Speed.values().length];
+        speedButton.setText("Speed: " + speed.label);
+        speedHands = 0;
+        speedSince = System.nanoTime();
+        loop.changed();
+    }
 
-        // Start a short delay timer for the next ai player
-        if (!getCurrentPlayer().isHuman)
-            if (!timer.started)
-                timer.call(game.aiTurnLength);
+    /**
+     * Play the rest of the AI turns straight away on this thread, up to the next human decision or the end
+     * of the round, the same way hidden hands are played when spectating. Their messages and changes all
+     * come in during this one call, so they are settled and drawn once when it is over
+     *
+     * The tree search would otherwise take its whole turn length on every move and hold up the frame, so it
+     * is cut down to a few playouts until the batch is done
+     */
+    private void fastForward() {
+        ai.cancelAndWait();
+        fastForwardButton.setVisible(false);
+        if (ismcts != null)
+            ismcts.hurry(FAST_PLAYOUTS);
+        try {
+            while ((state.phase == GameState.Phase.BETTING || state.phase == GameState.Phase.DRAWING)
+                    && !getCurrentPlayer().isHuman)
+                engine.aiAction();
+        } finally {
+            if (ismcts != null)
+                ismcts.hurry(0);
+        }
+        loop.changed();
     }
 
     /**
@@ -295,26 +828,26 @@ public class GameScreen implements Screen {
         Card c;
         for (i = 0; i < player.numCards(); i++) {
             c = player.hand().get(i);
-            c.image.draw(game.batch, i * 120 - startOfHand, handRect.y, 120, 172);
+            game.cardArt.image(c).draw(game.batch, i * 120 - startOfHand, handRect.y, 120, 172);
 
             // If the card is selected by the player, draw the selected border over it
             if (c == selected)
-                deck.selected().draw(game.batch, i * 120 - startOfHand, handRect.y, 120, 172);
+                game.cardArt.selected().draw(game.batch, i * 120 - startOfHand, handRect.y, 120, 172);
         }
         for (int j = 0; j < player.numField(); j++) {
             c = player.field().get(j);
-            c.image.draw(game.batch, (i+j) * 120 - startOfHand, handRect.y, 120, 172);
+            game.cardArt.image(c).draw(game.batch, (i+j) * 120 - startOfHand, handRect.y, 120, 172);
 
             // If the card is selected by the player, draw the selected border over it
             if (c == selected)
-                deck.selected().draw(game.batch, (i+j) * 120 - startOfHand, handRect.y, 120, 172);
+                game.cardArt.selected().draw(game.batch, (i+j) * 120 - startOfHand, handRect.y, 120, 172);
 
             // Draw the lock icon to show that this card is in the interference field
             lock.draw(game.batch, (i+j+1) * 120 - startOfHand - 48, handRect.y + handRect.height - 48, 32, 32);
         }
 
         if (player.numCards() + player.numField() > 0)
-            game.font24.draw(game.batch, "Value: " + player.score(), 16, selectRect.y + 32);
+            valueText.draw(game.batch, player.score(), 16, selectRect.y + 32);
 
         // Write the name of the currently selected card above the players hand value
         if (selected != null)
@@ -353,11 +886,11 @@ public class GameScreen implements Screen {
 
                 if (i < p.numCards()) {
                     if (p.displayHand)
-                        p.hand().get(i).image.draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
+                        game.cardArt.image(p.hand().get(i)).draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
                     else
-                        deck.cardback().draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
+                        game.cardArt.cardback().draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
                 } else {
-                    p.field().get(i - p.numCards()).image.draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
+                    game.cardArt.image(p.field().get(i - p.numCards())).draw(game.batch, (i % smallCardNum) * smallCardWidth, y, smallCardWidth, smallCardHeight);
                     lock.draw(game.batch, (i % smallCardNum) * smallCardWidth + (smallCardWidth - 32), y + smallCardHeight - 32, 24, 24);
                 }
             }
@@ -367,105 +900,12 @@ public class GameScreen implements Screen {
     }
 
     /**
-     * Unfold each player, check to make sure each player can afford to ante the next round
-     * If they cannot, they leave the table
+     * Clear the messages and hide each players hand, then start the next round of play
      */
     public void startNewRound() {
-        // Start by refreshing the deck and clearing each players hand
         messages.clear();
-        addMessage("Starting new round!");
-        addMessage("Ante is " + ante);
         hidePlayerHands();
-        deck.refreshDeck();
-        for (Player p : players) {
-            p.refreshScore();
-            p.hand().clear();
-            p.field().clear();
-        }
-        drawingStage.resetUntilCall();
-        bettingStage.resetBettingRound();
-
-        // Trying to fix a crash that happens when a bunch of players bomb out
-        for (int i = 0; i < players.size; i++) {
-            if (players.get(i).credits() >= ante * 2)
-                continue;
-            addMessage(players.get(i).name() + " drops from the game!");
-
-            // Remove the player and its associated button
-            players.removeIndex(i);
-            if (playerButtons.get(i) != null)
-                playerButtons.get(i).setVisible(false);
-            playerButtons.removeIndex(i);
-            updateButtonPositions();
-            i--;
-        }
-
-        // @todo have the button change to End Game, rather than Start Next Round when the game is over
-        if (players.size == 1) {
-            game.setScreen(new GameOverScreen(game, uiSkin, camera, viewport, players.get(0)));
-            return;
-        }
-        if (players.size == 0) {
-            game.setScreen(new GameOverScreen(game, uiSkin, camera, viewport, null));
-            return;
-        }
-
-        // For now, automatically ante each player
-        for (Player p : players) {
-            p.folded = false;
-            p.modifyCredits(-(ante*2));
-            p.updateButton();
-        }
-        mainPot += ante * players.size;
-        sabaccPot += ante * players.size;
-
-        // Notify the game that this is a new round, to deal a hand after the first betting round
-        startOfRound = true;
-
-        // Typically 4 pot building rounds before a player can call the hand
-        isCalled = false;
-
-        // Rounds begin with a preliminary betting round
-        setGameStage(bettingStage);
-    }
-
-    /**
-     * Deal the starting hand of 2 cards to each player
-     */
-    public void dealStartingHand() {
-        addMessage("Dealing starting hands!");
-        for (Player p : players) {
-            for (int i = 0; i < 2; i++) {
-                p.addCard(deck.drawCard());
-            }
-            p.updateButton();
-        }
-    }
-
-    /**
-     * Randomly determines if a Sabacc Shift should happen. A chance after each player makes
-     * a move
-     * Replaces the current deck with a new deck, for each player they replace each card in their
-     * hand with new cards. Cards in their Interference Field are not affected
-     */
-    public void sabaccShift() {
-        if (Math.random() > game.shiftChance)
-            return;
-        addMessage("A Sabacc Shift has occurred!!");
-        deck.refreshDeck();
-        for (Player p : players)
-            p.sabaccShift(deck);
-    }
-
-    /**
-     * Removes the card from the players hand and adds it to their interference field, to
-     * be protected from Sabacc Shifts but know to other players
-     * @param p the player
-     * @param c the card in their hand
-     */
-    public void fieldCard(Player p, Card c) {
-        addMessage(p.name() + " places " + c.name + " into the Interference Field");
-        p.fieldCard(c);
+        engine.startNewRound();
     }
 
     @Override
@@ -475,6 +915,7 @@ public class GameScreen implements Screen {
 
     @Override
     public void pause() {
+        flushLog();
 
     }
 
@@ -485,11 +926,17 @@ public class GameScreen implements Screen {
 
     @Override
     public void hide() {
+        ai.cancel();
 
     }
 
     @Override
     public void dispose() {
+        closeLog();
+        ai.dispose();
+        loop.dispose();
+        if (ismcts != null)
+            ismcts.dispose();
         currentStage.dispose();
         bettingStage.dispose();
         drawingStage.dispose();
@@ -531,8 +978,8 @@ public class GameScreen implements Screen {
                             selected = player.hand().get(i);
                             if (selected == doubleTap) {
                                 // If the player double taps a card, field it
-                                if (!player.folded) {
-                                    fieldCard(player, doubleTap);
+                                if (!player.folded && player.isHuman) {
+                                    fieldCard(doubleTap);
                                     doubleTap = null;
                                 }
                             } else {
@@ -597,15 +1044,17 @@ public class GameScreen implements Screen {
 
         // Sets up each player button
         playerButtons = new Array<PlayerButton>();
+        seatButtons = new Array<PlayerButton>();
         TextButton.TextButtonStyle style = new TextButton.TextButtonStyle();
         style.font = game.font24;
         style.up = uiSkin.getDrawable("player-button-up");
         style.down = uiSkin.getDrawable("player-button-down");
         style.checked = uiSkin.getDrawable("player-button-checked");
         for (Player p : players) {
-            if (p.isHuman) {
+            if (p == player) {
                 // Humans do not have buttons currently, just set as null in the array to keep things proper when iterating
                 playerButtons.add(null);
+                seatButtons.add(null);
                 continue;
             }
             final PlayerButton button = new PlayerButton(p, style);
@@ -632,8 +1081,8 @@ public class GameScreen implements Screen {
                     updateButtonPositions();
                 }
             });
-            p.button = button;
             playerButtons.add(button);
+            seatButtons.add(button);
             baseStage.addActor(button);
         }
 
@@ -655,6 +1104,40 @@ public class GameScreen implements Screen {
         });
         baseStage.addActor(settingsButton);
 
+        // Set up the fast forward button, shown in place of the stage buttons during AI turns
+        style = new TextButton.TextButtonStyle();
+        style.font = game.font32;
+        style.up = uiSkin.getDrawable("button1-up");
+        style.down = uiSkin.getDrawable("button1-down");
+        fastForwardButton = new TextButton("Fast Forward", style);
+        fastForwardButton.setWidth(600);
+        fastForwardButton.setHeight(buttonRect.height);
+        fastForwardButton.setPosition(0, 0);
+        fastForwardButton.setVisible(false);
+        fastForwardButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent e, float x, float y) {
+                if (!getCurrentPlayer().isHuman)
+                    fastForward();
+            }
+        });
+        baseStage.addActor(fastForwardButton);
+
+        // A spectated table has the speed button there instead, all the time
+        if (spectate) {
+            speedButton = new TextButton("Speed: " + speed.label, style);
+            speedButton.setWidth(600);
+            speedButton.setHeight(buttonRect.height);
+            speedButton.setPosition(0, 0);
+            speedButton.addListener(new ClickListener() {
+                @Override
+                public void clicked(InputEvent e, float x, float y) {
+                    changeSpeed();
+                }
+            });
+            baseStage.addActor(speedButton);
+        }
+
         updateButtonPositions();
         input.addProcessor(baseInput);
         input.addProcessor(baseStage);
@@ -252,7 +252,7 @@ public class NewGameScreen implements Screen {
         startGameStyle.down = uiSkin.getDrawable("button1-down");
         TextButton startGame = new TextButton("Start Game", startGameStyle);
         startGame.setPosition(0, 0);
-        startGame.setWidth(600);
+        startGame.setWidth(400);
         startGame.setHeight(112);
         startGame.addListener(new ClickListener() {
             @Override
@@ -265,6 +265,20 @@ public class NewGameScreen implements Screen {
         });
         stage.addActor(startGame);
 
+        // Or watch a game with every seat played by the AI
+        TextButton watchGame = new TextButton("Watch", startGameStyle);
+        watchGame.setPosition(400, 0);
+        watchGame.setWidth(200);
+        watchGame.setHeight(112);
+        watchGame.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                game.setScreen(new GameScreen(game, uiSkin, camera, viewport, numOpponents, anteCost, startingCredits, true));
+            }
+        });
+        stage.addActor(watchGame);
+
         Gdx.input.setInputProcessor(stage);
     }
 }
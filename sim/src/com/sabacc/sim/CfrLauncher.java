@@ -0,0 +1,119 @@
+package com.sabacc.sim;
+
+import com.sabacc.ai.CfrTrainer;
+import com.sabacc.ai.InfosetTable;
+import com.sabacc.ai.PolicyTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Command line entry point that trains a CFR betting policy across every core, saving a checkpoint
+ * every so often. Along with each checkpoint the policy so far is written as a PolicyTable, by default
+ * straight to the game's assets as cfr-policy.bin
+ *
+ * Usage: CfrLauncher [-iterations n] [-every n] [-threads n] [-seed n] [-ante n] [-shift f]
+ *                    [-checkpoint file] [-out file] [-resume]
+ *
+ * -every sets how many iterations to train between checkpoints, and -resume carries on training from
+ * the checkpoint already in -checkpoint
+ */
+public class CfrLauncher {
+    public static void main (String[] arg) {
+        long iterations = 10000000;
+        long every = 1000000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        int ante = 20;
+        float shiftChance = 0.05f;
+        String checkpoint = "cfr-checkpoint.bin";
+        String out = "../android/assets/cfr-policy.bin";
+        boolean resume = false;
+
+        for (int i = 0; i < arg.length; i++) {
+            if (arg[i].equals("-resume")) {
+                resume = true;
+                continue;
+            }
+            if (i + 1 >= arg.length) {
+                System.err.println("Missing value for " + arg[i]);
+                return;
+            }
+            String value = arg[++i];
+            if (arg[i - 1].equals("-iterations"))
+                iterations = Long.parseLong(value);
+            else if (arg[i - 1].equals("-every"))
+                every = Long.parseLong(value);
+            else if (arg[i - 1].equals("-threads"))
+                threads = Integer.parseInt(value);
+            else if (arg[i - 1].equals("-seed"))
+                seed = Long.parseLong(value);
+            else if (arg[i - 1].equals("-ante"))
+                ante = Integer.parseInt(value);
+            else if (arg[i - 1].equals("-shift"))
+                shiftChance = Float.parseFloat(value);
+            else if (arg[i - 1].equals("-checkpoint"))
+                checkpoint = value;
+            else if (arg[i - 1].equals("-out"))
+                out = value;
+            else {
+                System.err.println("Unknown option " + arg[i - 1]);
+                return;
+            }
+        }
+
+        Path path = Paths.get(checkpoint);
+        Path policy = Paths.get(out);
+        InfosetTable table = new InfosetTable();
+        long done = 0;
+        if (resume) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                done = table.read(in);
+            } catch (IOException e) {
+                System.err.println("Could not resume from " + checkpoint + ": " + e.getMessage());
+                return;
+            }
+            System.out.println("Resuming from " + done + " iterations, " + table.size() + " information sets");
+        }
+
+        CfrTrainer trainer = new CfrTrainer(threads, seed, ante, shiftChance, table, done);
+        System.out.println("Training " + iterations + " iterations on " + threads + " threads, seed " + seed);
+        long start = System.nanoTime();
+        try {
+            while (trainer.iterations() < done + iterations) {
+                trainer.train(Math.min(every, done + iterations - trainer.iterations()));
+                save(table, trainer.iterations(), path, false);
+                save(table, trainer.iterations(), policy, true);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(String.format("%d iterations, %d information sets, %.0f iterations/sec",
+                        trainer.iterations(), table.size(), (trainer.iterations() - done) / seconds));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save the training: " + e.getMessage());
+        } finally {
+            trainer.dispose();
+        }
+    }
+
+    /**
+     * Write the checkpoint or policy next to the old one and then swap it in, so stopping mid write never
+     * loses the last one
+     */
+    private static void save(InfosetTable table, long iterations, Path path, boolean policy) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            if (policy)
+                PolicyTable.write(table, iterations, out);
+            else
+                table.write(out, iterations);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
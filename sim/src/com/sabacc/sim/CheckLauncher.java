@@ -0,0 +1,306 @@
+package com.sabacc.sim;
+
+import com.sabacc.Card;
+import com.sabacc.Deck;
+import com.sabacc.Player;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.PotLedger;
+import com.sabacc.engine.Rng;
+import com.sabacc.engine.RulesEngine;
+import com.sabacc.engine.Showdown;
+import com.sabacc.engine.SplittableRng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Command line entry point that checks the rules engine against slow but obvious versions of the same
+ * rules, on random tables. Side pots are checked against paying out the main pot one credit at a time, and
+ * the Showdown against Sudden Demise played out recursively, one tie at a time
+ *
+ * Usage: CheckLauncher [-seed n] [-pots n] [-showdowns n]
+ *
+ * Prints the first few tables that came out differently, and exits with 1 if there were any
+ */
+public class CheckLauncher {
+    // How many failed tables are printed in full
+    private static final int SHOWN = 5;
+
+    public static void main(String[] arg) {
+        long seed = 42;
+        int pots = 1000000;
+        int showdowns = 1000000;
+
+        for (int i = 0; i + 1 < arg.length; i += 2) {
+            String value = arg[i + 1];
+            if (arg[i].equals("-seed"))
+                seed = Long.parseLong(value);
+            else if (arg[i].equals("-pots"))
+                pots = Integer.parseInt(value);
+            else if (arg[i].equals("-showdowns"))
+                showdowns = Integer.parseInt(value);
+            else {
+                System.err.println("Unknown option " + arg[i]);
+                System.err.println("Usage: CheckLauncher [-seed n] [-pots n] [-showdowns n]");
+                return;
+            }
+        }
+
+        int failedPots = checkPots(new SplittableRng(seed), pots);
+        System.out.println(String.format("Side pots: %d of %d tables differ", failedPots, pots));
+        int failedShowdowns = checkShowdowns(SplittableRng.streamSeed(seed, 1), showdowns);
+        System.out.println(String.format("Showdowns: %d of %d tables differ", failedShowdowns, showdowns));
+        if (failedPots > 0 || failedShowdowns > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Split random main pots with the PotLedger and one credit at a time, and compare what every player won
+     * @return how many tables came out differently
+     */
+    private static int checkPots(Rng rng, int tables) {
+        PotLedger ledger = new PotLedger();
+        ArrayList<Player> players = new ArrayList<Player>();
+        ArrayList<Player> ranked = new ArrayList<Player>();
+        int failed = 0;
+
+        for (int t = 0; t < tables; t++) {
+            int seats = 2 + rng.nextInt(7);
+            int carried = rng.nextInt(4) == 0 ? rng.nextInt(100) : 0;
+            players.clear();
+            for (int i = 0; i < seats; i++)
+                players.add(new Player(false, "Seat " + i, 0));
+            ledger.reset(players, carried);
+
+            // Few distinct amounts, so players are often all in for the same amount
+            int[] paid = new int[seats];
+            for (int i = 0; i < seats; i++) {
+                paid[i] = 10 * rng.nextInt(6) + (rng.nextInt(3) == 0 ? rng.nextInt(10) : 0);
+                ledger.add(players.get(i), paid[i]);
+            }
+
+            // A random order of a random part of the table, the rest folded or bombed out
+            ranked.clear();
+            for (int i = 0; i < seats; i++)
+                if (rng.nextInt(3) > 0)
+                    ranked.add(rng.nextInt(ranked.size() + 1), players.get(i));
+            int[] rankOf = new int[seats];
+            for (int i = 0; i < seats; i++)
+                rankOf[i] = ranked.indexOf(players.get(i));
+
+            int paidOut = ledger.payout(ranked);
+            int[] expected = payOneByOne(paid, rankOf, ranked.size(), carried);
+            int expectedOut = 0;
+            boolean same = true;
+            for (int r = 0; r < ranked.size(); r++) {
+                expectedOut += expected[r];
+                if (ledger.won(r) != expected[r])
+                    same = false;
+            }
+            if (paidOut != expectedOut)
+                same = false;
+
+            if (!same) {
+                failed++;
+                if (failed <= SHOWN) {
+                    StringBuilder s = new StringBuilder("Carried ").append(carried);
+                    for (int i = 0; i < seats; i++) {
+                        s.append(", seat ").append(i).append(" paid ").append(paid[i]);
+                        if (rankOf[i] >= 0)
+                            s.append(" ranked ").append(rankOf[i]).append(" won ").append(ledger.won(rankOf[i]))
+                                    .append(" expected ").append(expected[rankOf[i]]);
+                    }
+                    System.out.println(s);
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Settle random showdowns with the Showdown and with settle(), each with their own copy of the same table
+     * and the same deck, and compare the rankings, the winning hand values and the cards dealt
+     * @param seed the seed of the first table, table i is dealt from stream i of it
+     * @return how many tables came out differently
+     */
+    private static int checkShowdowns(long seed, int tables) {
+        // The card ids of each value from 1 to 15, four of each
+        int[][] ofValue = new int[16][4];
+        int[] found = new int[16];
+        int idiot = -1;
+        for (int id = 0; id < Deck.SIZE; id++) {
+            int v = Deck.card(id).value;
+            if (v >= 1 && v <= 15)
+                ofValue[v][found[v]++] = id;
+            else if (v == 0)
+                idiot = id;
+        }
+
+        int failed = 0;
+        Rng rng = new SplittableRng(seed);
+        for (int t = 0; t < tables; t++) {
+            long deckSeed = SplittableRng.streamSeed(seed, t);
+            GameState state = new GameState(new Deck(new SplittableRng(deckSeed)), 0, 0);
+            Deck deck = new Deck(new SplittableRng(deckSeed));
+            // Often leave only a few cards in the deck, so that it runs out in the middle of a Sudden Demise
+            int drawn = rng.nextInt(2) == 0 ? rng.nextInt(Deck.SIZE + 1) : 0;
+            for (int i = 0; i < drawn; i++) {
+                state.deck.drawId();
+                deck.drawId();
+            }
+
+            // Hands from only a few values, so that there are plenty of ties, and some Idiot's Arrays and folds.
+            // The cards are not taken out of the deck, the showdown does not mind
+            int seats = 2 + rng.nextInt(7);
+            ArrayList<Player> players = new ArrayList<Player>();
+            for (int i = 0; i < seats; i++) {
+                Player p = new Player(false, "Seat " + i, 0);
+                Player q = new Player(false, "Seat " + i, 0);
+                if (rng.nextInt(12) == 0) {
+                    int[] ids = { idiot, ofValue[2][rng.nextInt(4)], ofValue[3][rng.nextInt(4)] };
+                    for (int id : ids) {
+                        p.addCard(Deck.card(id));
+                        q.addCard(Deck.card(id));
+                    }
+                } else {
+                    int value = 17 + rng.nextInt(7);
+                    int a = Math.max(1, value - 15) + rng.nextInt(Math.min(15, value - 1) - Math.max(1, value - 15) + 1);
+                    int first = rng.nextInt(4);
+                    int second = (a == value - a) ? (first + 1 + rng.nextInt(3)) % 4 : rng.nextInt(4);
+                    p.addCard(Deck.card(ofValue[a][first]));
+                    q.addCard(Deck.card(ofValue[a][first]));
+                    p.addCard(Deck.card(ofValue[value - a][second]));
+                    q.addCard(Deck.card(ofValue[value - a][second]));
+                }
+                p.folded = q.folded = rng.nextInt(6) == 0;
+                state.players.add(p);
+                players.add(q);
+            }
+
+            Showdown showdown = new RulesEngine(state).showdown();
+            ArrayList<Player> ranked = showdown.resolve();
+
+            ArrayList<Player> start = new ArrayList<Player>();
+            for (Player q : players)
+                if (!q.folded && value(q) > 0)
+                    start.add(q);
+            Collections.sort(start, BY_VALUE);
+            int[] before = new int[seats];
+            for (int i = 0; i < seats; i++)
+                before[i] = value(players.get(i));
+            ArrayList<Player> expected = settle(start, deck);
+            int expectedHand = expected.isEmpty() ? 0 : before[players.indexOf(expected.get(0))];
+
+            boolean same = ranked.size() == expected.size() && showdown.winningHand() == expectedHand;
+            for (int r = 0; same && r < ranked.size(); r++)
+                if (state.players.indexOf(ranked.get(r)) != players.indexOf(expected.get(r)))
+                    same = false;
+            for (int i = 0; same && i < seats; i++)
+                if (state.players.get(i).hand().hash() != players.get(i).hand().hash())
+                    same = false;
+
+            if (!same) {
+                failed++;
+                if (failed <= SHOWN) {
+                    StringBuilder s = new StringBuilder("Table ").append(t).append(", ").append(deck.size())
+                            .append(" cards left, ranked");
+                    for (Player p : ranked)
+                        s.append(' ').append(state.players.indexOf(p));
+                    s.append(" won with ").append(showdown.winningHand()).append(", expected");
+                    for (Player q : expected)
+                        s.append(' ').append(players.indexOf(q));
+                    s.append(" won with ").append(expectedHand);
+                    System.out.println(s);
+                }
+            }
+        }
+        return failed;
+    }
+
+    // Best hand first, a stable sort keeps the earlier seat first between equal hands
+    private static final Comparator<Player> BY_VALUE = new Comparator<Player>() {
+        @Override
+        public int compare(Player a, Player b) {
+            return value(b) - value(a);
+        }
+    };
+
+    /**
+     * A hand's value for the showdown, written out again from the rules rather than taken from the Showdown:
+     * 24 for an Idiot's Array, 0 for a hand that has bombed out
+     */
+    private static int value(Player p) {
+        if (p.hand().idiotsArray())
+            return 24;
+        int v = Math.abs(p.score());
+        return v > 23 ? 0 : v;
+    }
+
+    /**
+     * Settle a ranking with Sudden Demise. While the best hands are tied and there are cards left, each tied
+     * player is dealt a card in ranking order. Those who bomb out can no longer win, and the rest settle it
+     * between themselves before anybody who was not tied. If every tied player bombs out the ones below them
+     * are up instead
+     * @param ranked the players who can win, best first
+     * @return the settled ranking, best first, without those who bombed out
+     */
+    private static ArrayList<Player> settle(ArrayList<Player> ranked, Deck deck) {
+        if (ranked.size() < 2 || deck.isEmpty())
+            return ranked;
+        int tied = 1;
+        while (tied < ranked.size() && value(ranked.get(tied)) == value(ranked.get(0)))
+            tied++;
+        if (tied == 1)
+            return ranked;
+
+        ArrayList<Player> survivors = new ArrayList<Player>();
+        for (int i = 0; i < tied; i++) {
+            Player p = ranked.get(i);
+            Card c = deck.drawCard();
+            if (c != null)
+                p.addCard(c);
+            if (value(p) > 0)
+                survivors.add(p);
+        }
+        Collections.sort(survivors, BY_VALUE);
+
+        ArrayList<Player> rest = new ArrayList<Player>(ranked.subList(tied, ranked.size()));
+        ArrayList<Player> settled = settle(survivors, deck);
+        if (settled.isEmpty())
+            return settle(rest, deck);
+        settled.addAll(rest);
+        return settled;
+    }
+
+    /**
+     * Pay out the main pot one credit at a time. A credit a player put in as their n-th goes to the best ranked
+     * player who put in at least n, a credit above what any ranked player put in goes to the best of those who
+     * put in the most, and credits carried from earlier rounds go to the best hand. Nothing is paid when
+     * nobody is ranked
+     * @return what each ranked player won, by rank
+     */
+    private static int[] payOneByOne(int[] paid, int[] rankOf, int rankedCount, int carried) {
+        int[] won = new int[rankedCount];
+        if (rankedCount == 0)
+            return won;
+
+        int top = 0;
+        for (int i = 0; i < paid.length; i++)
+            if (rankOf[i] >= 0)
+                top = Math.max(top, paid[i]);
+
+        won[0] += carried;
+        for (int i = 0; i < paid.length; i++) {
+            for (int n = 1; n <= paid[i]; n++) {
+                int level = Math.min(n, top);
+                int best = Integer.MAX_VALUE;
+                for (int j = 0; j < paid.length; j++)
+                    if (rankOf[j] >= 0 && paid[j] >= level)
+                        best = Math.min(best, rankOf[j]);
+                won[best]++;
+            }
+        }
+        return won;
+    }
+}
@@ -0,0 +1,164 @@
+package com.sabacc.sim;
+
+import com.sabacc.Deck;
+import com.sabacc.engine.HandRecord;
+import com.sabacc.engine.HandStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point that reads through a hand history. By default it gathers statistics from every
+ * round across every core: win rate by final hand value, bomb out rate by cards held, how often Sabacc
+ * Shifts happened against the shift chance and how much each seat won or lost a round. With -allin it
+ * instead finds every round a seat went all in, reporting how many there were and the first few of them
+ *
+ * Usage: HistoryLauncher -history dir [-threads n] [-shift f] [-allin seat] [-list n]
+ *
+ * -shift is the shift chance the games were played with, to compare against. A listed round can be played
+ * back from the action log of the same games with ReplayLauncher, using the seed and hand it is printed with
+ */
+public class HistoryLauncher {
+    public static void main(String[] arg) {
+        String historyDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        float shiftChance = 0.05f;
+        int seat = -1;
+        int list = 10;
+
+        for (int i = 0; i + 1 < arg.length; i += 2) {
+            String value = arg[i + 1];
+            if (arg[i].equals("-history"))
+                historyDir = value;
+            else if (arg[i].equals("-threads"))
+                threads = Integer.parseInt(value);
+            else if (arg[i].equals("-shift"))
+                shiftChance = Float.parseFloat(value);
+            else if (arg[i].equals("-allin"))
+                seat = Integer.parseInt(value);
+            else if (arg[i].equals("-list"))
+                list = Integer.parseInt(value);
+            else {
+                System.err.println("Unknown option " + arg[i]);
+                return;
+            }
+        }
+        if (historyDir == null || seat >= HandRecord.MAX_SEATS) {
+            System.err.println("Usage: HistoryLauncher -history dir [-threads n] [-shift f] [-allin seat] [-list n]");
+            return;
+        }
+
+        HandStore store;
+        try {
+            store = new HandStore(new File(historyDir));
+        } catch (IOException e) {
+            System.err.println("Could not open the hand history " + historyDir + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            if (seat >= 0)
+                findAllIn(store, seat, list);
+            else
+                stats(store, threads, shiftChance);
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Could not read the hand history: " + e.getMessage());
+        }
+    }
+
+    private static void stats(HandStore store, int threads, float shiftChance) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        HistoryStats stats = pool.invoke(new HistoryStatsTask(store, 0, store.count()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.println(String.format("Read %d rounds on %d threads in %.1f ms, %.1f million rounds a second",
+                stats.rounds, threads, seconds * 1000, stats.rounds / seconds / 1e6));
+
+        System.out.println("Win rate by final hand value, at showdowns with more than one player left:");
+        for (int v = 0; v < stats.shown.length; v++) {
+            if (stats.shown[v] == 0)
+                continue;
+            String name = v == 0 ? "bombed" : v == 24 ? "idiot's array" : Integer.toString(v);
+            System.out.println(String.format("  %-14s %9d shown  %6.2f%% won", name, stats.shown[v], 100.0 * stats.won[v] / stats.shown[v]));
+        }
+
+        System.out.println("Bomb out rate by cards held, of players who did not fold:");
+        for (int c = 0; c <= HistoryStats.MAX_CARDS; c++) {
+            if (stats.held[c] == 0)
+                continue;
+            System.out.println(String.format("  %2d%s cards %9d held  %6.2f%% bombed", c, c == HistoryStats.MAX_CARDS ? "+" : " ",
+                    stats.held[c], 100.0 * stats.bombed[c] / stats.held[c]));
+        }
+
+        System.out.println(String.format("Sabacc Shifts: %d in %d chances, %.4f a chance against a shift chance of %.4f",
+                stats.shifts, stats.shiftChances, (double) stats.shifts / Math.max(1, stats.shiftChances), shiftChance));
+        System.out.println(String.format("  %.3f a round, %.2f%% of rounds had one, %.1f chances a round",
+                (double) stats.shifts / Math.max(1, stats.rounds), 100.0 * stats.roundsShifted / Math.max(1, stats.rounds),
+                (double) stats.shiftChances / Math.max(1, stats.rounds)));
+
+        System.out.println("Credit swing a round by seat:");
+        System.out.println("  seat    rounds     mean    stdev     min     5%    50%    95%     max");
+        for (int s = 0; s < HandRecord.MAX_SEATS; s++) {
+            long n = stats.swingRounds[s];
+            if (n == 0)
+                continue;
+            double mean = (double) stats.swingTotal[s] / n;
+            double stdev = Math.sqrt(Math.max(0, (double) stats.swingSquares[s] / n - mean * mean));
+            System.out.println(String.format("  %4d %9d %8.1f %8.1f %7d %6d %6d %6d %7d", s, n, mean, stdev, stats.swingMin[s],
+                    stats.swingPercentile(s, 0.05), stats.swingPercentile(s, 0.5), stats.swingPercentile(s, 0.95), stats.swingMax[s]));
+        }
+    }
+
+    private static void findAllIn(HandStore store, int seat, final int list) throws IOException {
+        final int allIn = seat;
+        final long[] found = new long[1];
+        long start = System.nanoTime();
+        long scanned = store.scan(0, new HandStore.Visitor() {
+            @Override
+            public boolean visit(HandRecord hand) {
+                if (!hand.allIn(allIn))
+                    return true;
+                if (found[0] < list)
+                    System.out.println(describe(hand));
+                found[0]++;
+                return true;
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("Seat %d went all in %d times in %d rounds", seat, found[0], scanned));
+        System.out.println(String.format("Scanned in %.1f ms, %.1f million rounds a second", seconds * 1000, scanned / seconds / 1e6));
+    }
+
+    private static String describe(HandRecord hand) {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("Seed %d hand %d: main pot %d, sabacc pot %d, ", hand.seed(), hand.hand(), hand.mainPot(), hand.sabaccPot()));
+        if (hand.winner() < 0)
+            s.append("nobody won");
+        else if (hand.winningHand() == 0)
+            s.append("won by seat ").append(hand.winner()).append(" as the only one left");
+        else
+            s.append("won by seat ").append(hand.winner()).append(" with ").append(hand.winningHand());
+        for (int i = 0; i < hand.seats(); i++) {
+            if (!hand.playing(i))
+                continue;
+            s.append("\n  Seat ").append(i).append(": ").append(hand.credits(i)).append(" credits,");
+            for (int c = 0; c < hand.numCards(i); c++)
+                s.append(' ').append(Deck.card(hand.card(i, c)).name).append(',');
+            for (int c = 0; c < hand.numField(i); c++)
+                s.append(" field ").append(Deck.card(hand.field(i, c)).name).append(',');
+            s.setLength(s.length() - 1);
+            if (hand.bombed(i))
+                s.append(", bombed out");
+            else if (hand.folded(i))
+                s.append(", folded");
+            if (hand.allIn(i))
+                s.append(", all in");
+        }
+        return s.toString();
+    }
+}
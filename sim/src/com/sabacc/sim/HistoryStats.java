@@ -0,0 +1,163 @@
+package com.sabacc.sim;
+
+import com.sabacc.Hand;
+import com.sabacc.engine.HandRecord;
+import com.sabacc.engine.HandStore;
+import com.sabacc.engine.Showdown;
+
+/**
+ * Totals gathered in a single pass over a hand history, taking the same memory however many rounds are
+ * read. Parts of the history are read on different threads and their totals merged together
+ */
+public class HistoryStats implements HandStore.Visitor {
+    // Players holding more cards than this are counted with this many
+    public static final int MAX_CARDS = 16;
+
+    // Credit swings are counted in buckets this wide, anything further out than the last bucket in it
+    public static final int SWING_BUCKET = 20;
+    public static final int SWING_BUCKETS = 501;
+
+    public long rounds;
+
+    // At showdowns with more than one player left, how many hands of each value were shown and how many of
+    // them won. 0 is a hand that bombed out, 24 an Idiot's Array
+    final public long[] shown;
+    final public long[] won;
+
+    // Players who did not fold by how many cards they held in hand and field, and how many of them bombed out
+    final public long[] held;
+    final public long[] bombed;
+
+    // Sabacc Shifts, the chances for one and the rounds that had at least one
+    public long shifts;
+    public long shiftChances;
+    public long roundsShifted;
+
+    // How much each seat won or lost in a round
+    final public long[] swingRounds;
+    final public long[] swingTotal;
+    final public long[] swingSquares;
+    final public int[] swingMin;
+    final public int[] swingMax;
+    final public long[][] swings;
+
+    // Scratch space for working out hand values
+    final private Hand hand;
+    final private Hand field;
+
+    public HistoryStats() {
+        shown = new long[25];
+        won = new long[25];
+        held = new long[MAX_CARDS + 1];
+        bombed = new long[MAX_CARDS + 1];
+        swingRounds = new long[HandRecord.MAX_SEATS];
+        swingTotal = new long[HandRecord.MAX_SEATS];
+        swingSquares = new long[HandRecord.MAX_SEATS];
+        swingMin = new int[HandRecord.MAX_SEATS];
+        swingMax = new int[HandRecord.MAX_SEATS];
+        swings = new long[HandRecord.MAX_SEATS][SWING_BUCKETS];
+        hand = new Hand();
+        field = new Hand();
+    }
+
+    @Override
+    public boolean visit(HandRecord r) {
+        rounds++;
+        shifts += r.shifts();
+        shiftChances += r.shiftChances();
+        if (r.shifts() > 0)
+            roundsShifted++;
+
+        int left = 0;
+        for (int s = 0; s < r.seats(); s++)
+            if (r.playing(s) && !r.folded(s))
+                left++;
+
+        for (int s = 0; s < r.seats(); s++) {
+            if (!r.playing(s))
+                continue;
+            swing(s, r.swing(s));
+            if (r.folded(s))
+                continue;
+
+            r.cards(s, hand, field);
+            int cards = Math.min(hand.size() + field.size(), MAX_CARDS);
+            held[cards]++;
+            if (r.bombed(s))
+                bombed[cards]++;
+
+            if (left < 2)
+                continue;
+            int v = r.bombed(s) ? 0 : Showdown.handValue(hand, field);
+            shown[v]++;
+            if (r.winner() == s)
+                won[v]++;
+        }
+        return true;
+    }
+
+    private void swing(int seat, int swing) {
+        if (swingRounds[seat] == 0 || swing < swingMin[seat])
+            swingMin[seat] = swing;
+        if (swingRounds[seat] == 0 || swing > swingMax[seat])
+            swingMax[seat] = swing;
+        swingRounds[seat]++;
+        swingTotal[seat] += swing;
+        swingSquares[seat] += (long) swing * swing;
+        swings[seat][bucket(swing)]++;
+    }
+
+    /**
+     * The bucket a swing is counted in, the middle bucket holds swings of less than half a bucket either way
+     */
+    public static int bucket(int swing) {
+        int b = Math.round((float) swing / SWING_BUCKET) + SWING_BUCKETS / 2;
+        return Math.max(0, Math.min(SWING_BUCKETS - 1, b));
+    }
+
+    /**
+     * The swing a seat won or lost no more than in a fraction of their rounds, to the nearest bucket
+     */
+    public int swingPercentile(int seat, double fraction) {
+        long target = (long) Math.ceil(fraction * swingRounds[seat]);
+        long seen = 0;
+        for (int b = 0; b < SWING_BUCKETS; b++) {
+            seen += swings[seat][b];
+            if (seen >= target && seen > 0)
+                return (b - SWING_BUCKETS / 2) * SWING_BUCKET;
+        }
+        return 0;
+    }
+
+    /**
+     * Add the totals of another pass to this one
+     * @param other the totals to merge in
+     * @return these totals
+     */
+    public HistoryStats merge(HistoryStats other) {
+        rounds += other.rounds;
+        for (int v = 0; v < shown.length; v++) {
+            shown[v] += other.shown[v];
+            won[v] += other.won[v];
+        }
+        for (int c = 0; c <= MAX_CARDS; c++) {
+            held[c] += other.held[c];
+            bombed[c] += other.bombed[c];
+        }
+        shifts += other.shifts;
+        shiftChances += other.shiftChances;
+        roundsShifted += other.roundsShifted;
+        for (int s = 0; s < HandRecord.MAX_SEATS; s++) {
+            if (other.swingRounds[s] == 0)
+                continue;
+            swingMin[s] = swingRounds[s] == 0 ? other.swingMin[s] : Math.min(swingMin[s], other.swingMin[s]);
+            swingMax[s] = swingRounds[s] == 0 ? other.swingMax[s] : Math.max(swingMax[s], other.swingMax[s]);
+            swingRounds[s] += other.swingRounds[s];
+            swingTotal[s] += other.swingTotal[s];
+            swingSquares[s] += other.swingSquares[s];
+            for (int b = 0; b < SWING_BUCKETS; b++)
+                swings[s][b] += other.swings[s][b];
+        }
+        return this;
+    }
+}
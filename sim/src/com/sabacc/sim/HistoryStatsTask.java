@@ -0,0 +1,56 @@
+package com.sabacc.sim;
+
+import com.sabacc.engine.HandStore;
+
+import java.io.IOException;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads a range of rounds from a hand history on a fork/join pool, splitting the range in half until it
+ * is small enough to be read on a single thread. Ranges are split on index entries of the store, so every
+ * part starts reading right where the index points and most parts fall within a single segment file
+ */
+public class HistoryStatsTask extends RecursiveTask<HistoryStats> {
+    private static final long serialVersionUID = 1L;
+
+    // How many rounds are read in a single task before it is no longer worth splitting
+    private static final long BATCH = 256L * HandStore.INDEX_EVERY;
+
+    final private HandStore store;
+    final private long from;
+    final private long to;
+
+    /**
+     * @param from the number of the first round to read
+     * @param to the number of the round after the last one to read
+     */
+    public HistoryStatsTask(HandStore store, long from, long to) {
+        this.store = store;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected HistoryStats compute() {
+        if (to - from <= BATCH) {
+            HistoryStats stats = new HistoryStats();
+            try {
+                store.scan(from, to, stats);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read the hand history", e);
+            }
+            return stats;
+        }
+
+        // Halfway in whole batches, then back to the index entry before it. Segments start at any round, so
+        // entries are counted from the start of the segment it falls in. That is still after from, as the
+        // half is at least a batch
+        long mid = from + Math.max(1, (to - from) / 2 / BATCH) * BATCH;
+        long first = store.segmentFirst(mid);
+        mid = first + (mid - first) / HandStore.INDEX_EVERY * HandStore.INDEX_EVERY;
+        HistoryStatsTask left = new HistoryStatsTask(store, from, mid);
+        HistoryStatsTask right = new HistoryStatsTask(store, mid, to);
+        left.fork();
+        return right.compute().merge(left.join());
+    }
+}
@@ -0,0 +1,115 @@
+package com.sabacc.sim;
+
+import com.sabacc.Deck;
+import com.sabacc.Player;
+import com.sabacc.engine.ActionLog;
+import com.sabacc.engine.Replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Command line entry point that plays back a hand from an action log, printing the table at the start of
+ * the hand and then every action in it
+ *
+ * Usage: ReplayLauncher -log file -seed n [-game n] [-hand n]
+ *
+ * -game picks between games with the same seed, as a watched table keeps its seed from game to game.
+ * Without -hand it prints how many hands the game lasted
+ */
+public class ReplayLauncher {
+    public static void main(String[] arg) {
+        String logFile = null;
+        Long seed = null;
+        int game = 0;
+        int hand = 0;
+
+        for (int i = 0; i + 1 < arg.length; i += 2) {
+            String value = arg[i + 1];
+            if (arg[i].equals("-log"))
+                logFile = value;
+            else if (arg[i].equals("-seed"))
+                seed = Long.parseLong(value);
+            else if (arg[i].equals("-game"))
+                game = Integer.parseInt(value);
+            else if (arg[i].equals("-hand"))
+                hand = Integer.parseInt(value);
+            else {
+                System.err.println("Unknown option " + arg[i]);
+                return;
+            }
+        }
+        if (logFile == null || seed == null) {
+            System.err.println("Usage: ReplayLauncher -log file -seed n [-game n] [-hand n]");
+            return;
+        }
+
+        Replay replay;
+        try {
+            replay = Replay.find(map(new File(logFile)), seed, game);
+        } catch (IOException e) {
+            System.err.println("Could not read the action log " + logFile + ": " + e.getMessage());
+            return;
+        }
+        if (replay == null) {
+            System.err.println("No game with seed " + seed + " in " + logFile);
+            return;
+        }
+
+        System.out.println("Game with seed " + seed + " lasted " + replay.hands() + " hands");
+        if (hand == 0)
+            return;
+        if (hand < 0 || hand > replay.hands()) {
+            System.err.println("The game has no hand " + hand);
+            return;
+        }
+
+        replay.seekHand(hand);
+        System.out.println("Hand " + hand + ", main pot " + replay.state().mainPot + ", sabacc pot " + replay.state().sabaccPot);
+        for (Player p : replay.state().players)
+            System.out.println("  " + p.name() + ": " + p.credits() + " credits");
+        int type;
+        while ((type = replay.step()) >= 0 && type != ActionLog.HAND)
+            System.out.println(describe(replay));
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * The last record a replay played back, written out
+     */
+    private static String describe(Replay replay) {
+        String name = replay.seat() >= 0 ? replay.seat(replay.seat()).name() : "";
+        int v = replay.value();
+        switch (replay.type()) {
+            case ActionLog.ANTE: return name + " antes " + v;
+            case ActionLog.BET: return name + (v == 0 ? " checks" : " matches with " + v);
+            case ActionLog.RAISE: return name + " raises by " + v;
+            case ActionLog.ALL_IN: return name + " goes all in with " + v;
+            case ActionLog.FOLD: return name + " folds";
+            case ActionLog.DEAL: return name + " is dealt " + Deck.card(v).name;
+            case ActionLog.DRAW: return name + (v < Deck.SIZE ? " draws " + Deck.card(v).name : " draws from an empty deck");
+            case ActionLog.STAND: return name + " stands";
+            case ActionLog.CALL: return name + " calls the round";
+            case ActionLog.FIELD: return name + " fields " + Deck.card(v).name;
+            case ActionLog.SHIFT: return "Sabacc Shift";
+            case ActionLog.BOMB: return name + " bombs out and pays " + v;
+            case ActionLog.PAYOUT: return name + " wins " + v + " from the main pot";
+            case ActionLog.SABACC: return name + " wins " + v + " from the sabacc pot";
+            case ActionLog.DROP: return name + " drops from the game";
+            case ActionLog.GAME_OVER: return "Game over";
+        }
+        return "Record " + replay.type();
+    }
+}
@@ -0,0 +1,231 @@
+package com.sabacc.sim;
+
+import com.sabacc.Deck;
+import com.sabacc.Player;
+import com.sabacc.ai.CfrPolicy;
+import com.sabacc.ai.CfrStrategy;
+import com.sabacc.ai.EquityEstimator;
+import com.sabacc.ai.EquityStrategy;
+import com.sabacc.ai.IsmctsSearch;
+import com.sabacc.ai.IsmctsStrategy;
+import com.sabacc.ai.PressureStrategy;
+import com.sabacc.ai.Strategy;
+import com.sabacc.ai.ThresholdStrategy;
+import com.sabacc.engine.ActionLog;
+import com.sabacc.engine.GameState;
+import com.sabacc.engine.HandHistory;
+import com.sabacc.engine.HandStore;
+import com.sabacc.engine.RulesEngine;
+import com.sabacc.engine.Rng;
+import com.sabacc.engine.SplittableRng;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Plays complete games of Sabacc with every seat controlled by the AI, from the first round until
+ * a single player is left. Not thread safe, each worker thread should have its own Simulation
+ */
+public class Simulation {
+    // The table settings every game is played with
+    final private int seats;
+    final private int ante;
+    final private int startingCredits;
+    final private float shiftChance;
+
+    // Limits to stop a single game from running forever if the AI gets stuck in a loop
+    final private int maxRounds;
+    final private int maxActionsPerRound;
+
+    // The strategy of each seat, repeated if there are more seats than strategies. One of threshold,
+    // equity, ismcts, cfr, aggressive, balanced or cautious
+    final private String[] strategies;
+
+    // Equity seats bet using Monte Carlo equity estimates with this many rollouts per decision
+    final private int equitySamples;
+    final private EquityEstimator equity;
+
+    // ISMCTS seats search this many playouts per decision
+    final private int ismctsPlayouts;
+    final private IsmctsSearch ismcts;
+
+    // CFR seats bet from this trained policy, shared by every simulation as it is only read
+    final private CfrPolicy policy;
+
+    // The players of the current game in seat order, as players are removed from the game state once they drop
+    final private Player[] seated;
+
+    // Every game is written to this file as an ActionLog when it is set, the channel is shared between copies
+    final private FileChannel logChannel;
+    final private ActionLog log;
+
+    // Every finished round is added to this store when it is set, the store is shared between copies
+    final private HandStore store;
+    final private HandHistory history;
+
+    public Simulation(int seats, int ante, int startingCredits, float shiftChance, int maxRounds, int maxActionsPerRound,
+                      String[] strategies, int equitySamples, int ismctsPlayouts, CfrPolicy policy, FileChannel logChannel,
+                      HandStore store) {
+        for (String s : strategies) {
+            if (!isStrategy(s))
+                throw new IllegalArgumentException("Unknown strategy " + s);
+            if (s.equals("cfr") && policy == null)
+                throw new IllegalArgumentException("CFR seats need a policy");
+        }
+        this.seats = seats;
+        this.ante = ante;
+        this.startingCredits = startingCredits;
+        this.shiftChance = shiftChance;
+        this.maxRounds = maxRounds;
+        this.maxActionsPerRound = maxActionsPerRound;
+        this.strategies = strategies;
+        this.equitySamples = equitySamples;
+        // Simulations already run one per core, so rollouts stay on the simulation thread
+        equity = new EquityEstimator(1, 0, equitySamples);
+        // A playout limit instead of a deadline, so the same seed always plays the same games
+        this.ismctsPlayouts = ismctsPlayouts;
+        ismcts = new IsmctsSearch(0, ismctsPlayouts);
+        this.policy = policy;
+        seated = new Player[seats];
+        this.logChannel = logChannel;
+        log = logChannel != null ? new ActionLog(logChannel) : null;
+        this.store = store;
+        history = store != null ? new HandHistory(store) : null;
+    }
+
+    /**
+     * Create a new simulation with the same settings, for use on another thread
+     */
+    public Simulation copy() {
+        return new Simulation(seats, ante, startingCredits, shiftChance, maxRounds, maxActionsPerRound, strategies, equitySamples, ismctsPlayouts, policy, logChannel, store);
+    }
+
+    public int seats() { return seats; }
+
+    /**
+     * Play one full game and add it to the result, the same seed always plays the same game
+     * @param seed the seed of the random stream for this game
+     * @param result where to record how the game went
+     */
+    public void playGame(long seed, SimulationResult result) {
+        GameState state = new GameState(new Deck(new SplittableRng(seed)), ante, shiftChance);
+        // Every seat splits its own stream off a root kept apart from the deck, so which strategies sit at
+        // the table never changes the shuffles and shifts, and strategies can be compared on the same deals
+        Rng seating = new SplittableRng(SplittableRng.streamSeed(seed, -1));
+        for (int i = 0; i < seats; i++) {
+            seated[i] = new Player(false, "Seat " + i, startingCredits);
+            seated[i].setStrategy(createStrategy(strategies[i % strategies.length], seated[i], seating.split()));
+            state.players.add(seated[i]);
+        }
+        RulesEngine engine = new RulesEngine(state);
+        if (log != null) {
+            engine.setLog(log);
+            log.game(seed, state);
+        }
+        if (history != null) {
+            engine.setHistory(history);
+            history.game(seed, state);
+        }
+
+        boolean finished = true;
+        while (engine.startNewRound()) {
+            int actions = 0;
+            while (state.phase == GameState.Phase.BETTING || state.phase == GameState.Phase.DRAWING) {
+                engine.aiAction();
+                actions++;
+                if (actions > maxActionsPerRound)
+                    break;
+            }
+            if (actions > maxActionsPerRound || state.rounds >= maxRounds) {
+                finished = false;
+                break;
+            }
+        }
+
+        if (log != null) {
+            try {
+                log.endGame();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write the action log", e);
+            }
+        }
+        if (history != null) {
+            try {
+                history.endGame();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write the hand history", e);
+            }
+        }
+
+        result.games++;
+        result.hands += state.rounds;
+        if (!finished)
+            result.unfinished++;
+        else if (state.players.size() == 1)
+            result.wins[seatOf(state.players.get(0))]++;
+    }
+
+    public static boolean isStrategy(String name) {
+        return name.equals("threshold") || name.equals("equity") || name.equals("ismcts") || name.equals("cfr")
+                || name.equals("aggressive")
+                || name.equals("balanced") || name.equals("cautious");
+    }
+
+    /**
+     * Create a new strategy for a player, every strategy uses the same bid range that GameScreen gives its opponents
+     * @param rng the player's own random stream
+     */
+    private Strategy createStrategy(String name, Player p, Rng rng) {
+        if (name.equals("equity"))
+            return new EquityStrategy(equity, rng, 0.2f, 0.6f);
+        if (name.equals("ismcts"))
+            return new IsmctsStrategy(ismcts, rng);
+        if (name.equals("cfr"))
+            return new CfrStrategy(policy, rng);
+        if (name.equals("aggressive"))
+            return new PressureStrategy(p, PressureStrategy.Type.AGGRESSIVE);
+        if (name.equals("balanced"))
+            return new PressureStrategy(p, PressureStrategy.Type.BALANCED);
+        if (name.equals("cautious"))
+            return new PressureStrategy(p, PressureStrategy.Type.CAUTIOUS);
+        return new ThresholdStrategy(0.2f, 0.6f);
+    }
+
+    /**
+     * Add how the ISMCTS searches went to a result and stop the search thread, once this simulation is done
+     */
+    public void finish(SimulationResult result) {
+        result.searches += ismcts.searches();
+        result.searchPlayouts += ismcts.playouts();
+        result.searchNodeVisits += ismcts.nodeVisits();
+        result.searchNanos += ismcts.searchNanos();
+        result.searchTreeNodes += ismcts.treeNodes();
+        result.largestTree = Math.max(result.largestTree, ismcts.largestTree());
+        ismcts.dispose();
+        equity.dispose();
+        if (log != null) {
+            try {
+                log.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write the action log", e);
+            }
+        }
+        if (history != null) {
+            try {
+                history.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write the hand history", e);
+            }
+        }
+    }
+
+    /**
+     * Find which seat a player of the current game is sitting in
+     */
+    private int seatOf(Player p) {
+        for (int i = 0; i < seats; i++)
+            if (seated[i] == p)
+                return i;
+        return -1;
+    }
+}
@@ -0,0 +1,169 @@
+package com.sabacc.sim;
+
+import com.sabacc.ai.CfrPolicy;
+import com.sabacc.ai.PolicyTable;
+import com.sabacc.engine.ActionLog;
+import com.sabacc.engine.HandStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line entry point that plays a large number of AI only games across every core and
+ * reports how fast they ran and how often each seat won
+ *
+ * Usage: SimulationLauncher [-games n] [-seats n] [-ante n] [-credits n] [-shift f] [-threads n] [-seed n]
+ *                           [-strategies a,b,...] [-equity n] [-ismcts n] [-policy file] [-log file]
+ *                           [-history dir]
+ *
+ * -strategies sets the strategy of each seat in order, repeating the list if there are more seats.
+ * The strategies are threshold, equity, ismcts, cfr, aggressive, balanced and cautious. Equity seats use
+ * -equity rollouts per decision, ismcts seats use -ismcts playouts per decision and cfr seats bet from
+ * the policy trained by CfrLauncher in -policy. -log appends every game to a file as a binary ActionLog,
+ * and -history adds every finished round to a HandStore in a directory
+ *
+ * The same seed always plays the same games, no matter how many threads are used
+ */
+public class SimulationLauncher {
+    public static void main (String[] arg) {
+        // Defaults match a new game with 5 opponents and the default settings of Sabacc
+        int games = 10000;
+        int seats = 6;
+        int ante = 20;
+        int credits = 500;
+        float shiftChance = 0.05f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        String[] strategies = { "threshold" };
+        int equitySamples = 200;
+        int ismctsPlayouts = 1000;
+        String policyFile = "../android/assets/cfr-policy.bin";
+        String logFile = null;
+        String historyDir = null;
+
+        for (int i = 0; i + 1 < arg.length; i += 2) {
+            String value = arg[i + 1];
+            if (arg[i].equals("-games"))
+                games = Integer.parseInt(value);
+            else if (arg[i].equals("-seats"))
+                seats = Integer.parseInt(value);
+            else if (arg[i].equals("-ante"))
+                ante = Integer.parseInt(value);
+            else if (arg[i].equals("-credits"))
+                credits = Integer.parseInt(value);
+            else if (arg[i].equals("-shift"))
+                shiftChance = Float.parseFloat(value);
+            else if (arg[i].equals("-threads"))
+                threads = Integer.parseInt(value);
+            else if (arg[i].equals("-seed"))
+                seed = Long.parseLong(value);
+            else if (arg[i].equals("-strategies"))
+                strategies = value.split(",");
+            else if (arg[i].equals("-equity"))
+                equitySamples = Integer.parseInt(value);
+            else if (arg[i].equals("-ismcts"))
+                ismctsPlayouts = Integer.parseInt(value);
+            else if (arg[i].equals("-policy"))
+                policyFile = value;
+            else if (arg[i].equals("-log"))
+                logFile = value;
+            else if (arg[i].equals("-history"))
+                historyDir = value;
+            else {
+                System.err.println("Unknown option " + arg[i]);
+                return;
+            }
+        }
+        if (seats < 2) {
+            System.err.println("A game needs at least 2 seats");
+            return;
+        }
+        for (String s : strategies) {
+            if (!Simulation.isStrategy(s)) {
+                System.err.println("Unknown strategy " + s);
+                return;
+            }
+        }
+
+        CfrPolicy policy = null;
+        if (Arrays.asList(strategies).contains("cfr")) {
+            try {
+                policy = new CfrPolicy(PolicyTable.map(new File(policyFile)));
+            } catch (IOException e) {
+                System.err.println("Could not load the CFR policy " + policyFile + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        FileChannel log = null;
+        long logStart = 0;
+        if (logFile != null) {
+            try {
+                log = ActionLog.open(new File(logFile));
+                logStart = log.size();
+            } catch (IOException e) {
+                System.err.println("Could not open the action log " + logFile + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        HandStore history = null;
+        long historyStart = 0;
+        if (historyDir != null) {
+            try {
+                history = new HandStore(new File(historyDir));
+                historyStart = history.count();
+            } catch (IOException e) {
+                System.err.println("Could not open the hand history " + historyDir + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        Simulation template = new Simulation(seats, ante, credits, shiftChance, 100000, 100000, strategies, equitySamples,
+                ismctsPlayouts, policy, log, history);
+        System.out.println("Playing " + games + " games with " + seats + " seats on " + threads + " threads, seed " + seed);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new SimulationTask(template, seed, 0, games));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        printResult(result, seconds);
+        if (log != null) {
+            try {
+                System.out.println(String.format("Action log:      %.1f bytes per hand", (double) (log.size() - logStart) / Math.max(1, result.hands)));
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the action log: " + e.getMessage());
+            }
+        }
+        if (history != null) {
+            try {
+                System.out.println(String.format("Hand history:    %d rounds added, %d in the store", history.count() - historyStart, history.count()));
+                history.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the hand history: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void printResult(SimulationResult result, double seconds) {
+        System.out.println(String.format("Time:            %.2f s", seconds));
+        System.out.println(String.format("Games/sec:       %.1f", result.games / seconds));
+        System.out.println(String.format("Hands/sec:       %.1f", result.hands / seconds));
+        System.out.println(String.format("Rounds per game: %.2f", (double) result.hands / Math.max(1, result.games)));
+        if (result.unfinished > 0)
+            System.out.println("Unfinished games: " + result.unfinished);
+        if (result.searches > 0) {
+            System.out.println(String.format("ISMCTS nodes/sec:  %.0f", result.searchNodeVisits * 1e9 / Math.max(1, result.searchNanos)));
+            System.out.println(String.format("ISMCTS playouts/sec: %.0f", result.searchPlayouts * 1e9 / Math.max(1, result.searchNanos)));
+            System.out.println(String.format("ISMCTS tree size: %.1f average, %d largest", (double) result.searchTreeNodes / result.searches, result.largestTree));
+        }
+        for (int i = 0; i < result.wins.length; i++)
+            System.out.println(String.format("Seat %d win rate: %.2f%%", i, 100.0 * result.wins[i] / Math.max(1, result.games)));
+    }
+}
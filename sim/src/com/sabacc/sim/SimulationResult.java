@@ -0,0 +1,48 @@
+package com.sabacc.sim;
+
+/**
+ * The totals from a batch of simulated games, batches from different threads are merged together
+ */
+public class SimulationResult {
+    // How many games were played, and how many hands (rounds) were played over all of them
+    public long games;
+    public long hands;
+
+    // Games that hit the round or action limits before a single player was left
+    public long unfinished;
+
+    // How many games each seat won, a game nobody won (everybody dropped at once) counts for no seat
+    final public long[] wins;
+
+    // Totals of every ISMCTS search, see IsmctsSearch
+    public long searches;
+    public long searchPlayouts;
+    public long searchNodeVisits;
+    public long searchNanos;
+    public long searchTreeNodes;
+    public int largestTree;
+
+    public SimulationResult(int seats) {
+        wins = new long[seats];
+    }
+
+    /**
+     * Add the totals of another result to this one
+     * @param other the result to merge in
+     * @return this result
+     */
+    public SimulationResult merge(SimulationResult other) {
+        games += other.games;
+        hands += other.hands;
+        unfinished += other.unfinished;
+        for (int i = 0; i < wins.length; i++)
+            wins[i] += other.wins[i];
+        searches += other.searches;
+        searchPlayouts += other.searchPlayouts;
+        searchNodeVisits += other.searchNodeVisits;
+        searchNanos += other.searchNanos;
+        searchTreeNodes += other.searchTreeNodes;
+        largestTree = Math.max(largestTree, other.largestTree);
+        return this;
+    }
+}
@@ -0,0 +1,51 @@
+package com.sabacc.sim;
+
+import com.sabacc.engine.SplittableRng;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a range of games on a fork/join pool, splitting the range in half until it is small
+ * enough to be played on a single thread
+ */
+public class SimulationTask extends RecursiveTask<SimulationResult> {
+    private static final long serialVersionUID = 1L;
+
+    // How many games are played in a single task before it is no longer worth splitting
+    private static final int BATCH = 64;
+
+    final private Simulation template;
+    final private long seed;
+    final private int first;
+    final private int games;
+
+    /**
+     * @param template the simulation settings, copied for each batch so it never has to be shared between threads
+     * @param seed the base seed, game i is played with stream i of this seed no matter which thread plays it
+     * @param first the index of the first game to play
+     * @param games how many games to play
+     */
+    public SimulationTask(Simulation template, long seed, int first, int games) {
+        this.template = template;
+        this.seed = seed;
+        this.first = first;
+        this.games = games;
+    }
+
+    @Override
+    protected SimulationResult compute() {
+        if (games <= BATCH) {
+            Simulation simulation = template.copy();
+            SimulationResult result = new SimulationResult(simulation.seats());
+            for (int i = first; i < first + games; i++)
+                simulation.playGame(SplittableRng.streamSeed(seed, i), result);
+            simulation.finish(result);
+            return result;
+        }
+
+        SimulationTask left = new SimulationTask(template, seed, first, games / 2);
+        SimulationTask right = new SimulationTask(template, seed, first + games / 2, games - games / 2);
+        left.fork();
+        return right.compute().merge(left.join());
+    }
+}